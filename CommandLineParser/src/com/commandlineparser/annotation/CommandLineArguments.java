@@ -0,0 +1,17 @@
+package com.commandlineparser.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the <code>String[]</code> or <code>List&lt;String&gt;</code> field receiving the arguments which are not
+ * options.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface CommandLineArguments {
+}
@@ -0,0 +1,39 @@
+package com.commandlineparser.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares an option receiving its value in the annotated field.
+ * <p>
+ * The type of the field sets the arguments of the option: a <code>boolean</code> is a flag, a <code>String[]</code>
+ * or a <code>List&lt;String&gt;</code> takes any number of values, and a <code>String</code>, a number or a
+ * <code>File</code> takes one value, converted when it is assigned.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface CommandLineOption {
+	
+	/**
+	 * @return the short name of the option, none if empty
+	 */
+	String opt() default "";
+	
+	/**
+	 * @return the long name of the option, none if empty
+	 */
+	String longOpt() default "";
+	
+	String description() default "";
+	
+	boolean required() default false;
+	
+	/**
+	 * @return the name of the group of mutually exclusive options the option belongs to, none if empty
+	 */
+	String group() default "";
+}
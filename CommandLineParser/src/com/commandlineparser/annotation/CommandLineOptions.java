@@ -0,0 +1,30 @@
+package com.commandlineparser.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class whose fields annotated with {@link CommandLineOption} and {@link CommandLineArguments} define the
+ * options of a command line. The annotation processor generates a parser dedicated to the class.
+ * <p>
+ * The class must have a constructor without parameters, and its annotated fields must be neither private, static
+ * nor final: the generated parser lives in the same package and assigns them directly.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface CommandLineOptions {
+	
+	/**
+	 * @return the simple name of the generated parser, the name of the class followed by "Parser" if empty
+	 */
+	String parserName() default "";
+	
+	/**
+	 * @return the names of the groups of which an option is required
+	 */
+	String[] requiredGroups() default {};
+}
@@ -0,0 +1,110 @@
+package com.commandlineparser.entity;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+
+import com.commandlineparser.exception.ParseException;
+
+/**
+ * The outcome of {@link DefaultParser#parseAll}: one entry per command line, in the order of the input.
+ */
+public final class BatchParseResult implements Iterable<BatchParseResult.Entry> {
+
+	private final CommandLine[] commandLines;
+	private final ParseException[] exceptions;
+	private final int failureCount;
+	
+	BatchParseResult(CommandLine[] commandLines, ParseException[] exceptions) {
+		this.commandLines = commandLines;
+		this.exceptions = exceptions;
+		
+		int failures = 0;
+		for (ParseException exception : exceptions) {
+			if (exception != null)
+				failures++;
+		}
+		this.failureCount = failures;
+	}
+	
+	public int size() {
+		return commandLines.length;
+	}
+	
+	public int getSuccessCount() {
+		return size() - failureCount;
+	}
+	
+	public int getFailureCount() {
+		return failureCount;
+	}
+	
+	public Entry get(int index) {
+		return new Entry(index, commandLines[index], exceptions[index]);
+	}
+	
+	public List<Entry> getEntries() {
+		return new AbstractList<Entry>() {
+			@Override
+			public Entry get(int index) {
+				return BatchParseResult.this.get(index);
+			}
+			
+			@Override
+			public int size() {
+				return BatchParseResult.this.size();
+			}
+		};
+	}
+	
+	@Override
+	public Iterator<Entry> iterator() {
+		return getEntries().iterator();
+	}
+	
+	@Override
+	public String toString() {
+		return "[ BatchParseResult: " + size() + " parsed, " + failureCount + " failed ]";
+	}
+	
+	/**
+	 * The outcome of a single command line: either the parsed {@link CommandLine} or the exception which
+	 * stopped the parsing.
+	 */
+	public static final class Entry {
+		private final int index;
+		private final CommandLine commandLine;
+		private final ParseException exception;
+		
+		private Entry(int index, CommandLine commandLine, ParseException exception) {
+			this.index = index;
+			this.commandLine = commandLine;
+			this.exception = exception;
+		}
+		
+		/**
+		 * @return the position of the command line in the input
+		 */
+		public int getIndex() {
+			return index;
+		}
+		
+		public boolean isSuccess() {
+			return exception == null;
+		}
+		
+		/**
+		 * @return the parsed command line, <code>null</code> if the parsing failed
+		 */
+		public CommandLine getCommandLine() {
+			return commandLine;
+		}
+		
+		/**
+		 * @return the exception thrown by the parser, <code>null</code> if the parsing succeeded
+		 */
+		public ParseException getException() {
+			return exception;
+		}
+	}
+}
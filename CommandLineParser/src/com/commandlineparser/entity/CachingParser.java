@@ -0,0 +1,187 @@
+package com.commandlineparser.entity;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.commandlineparser.exception.ParseException;
+
+/**
+ * A parser remembering the command lines it has parsed.
+ * <p>
+ * The results are kept in a cache bounded to a number of entries, the least recently used entry is evicted first.
+ * An entry is found by the content of the arguments and the {@link ParsePlan} of the options: changing the options
+ * compiles a new plan, so the results parsed with the previous definitions are no longer returned. The command lines
+ * returned are immutable and shared by all the callers parsing the same arguments.
+ * <p>
+ * Failed parses and parses with default values are not cached, nor are the arguments naming a response file when
+ * the parser expands them: the file may change between two parses.
+ */
+public class CachingParser implements CommandLineParser {
+
+	private final DefaultParser parser;
+	private final int maxSize;
+	
+	/** the cached command lines in access order, guarded by itself */
+	private final Map<Key, CommandLine> cache;
+	
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	
+	/**
+	 * @param maxSize the maximum number of command lines kept
+	 */
+	public CachingParser(int maxSize) {
+		this(new DefaultParser(), maxSize);
+	}
+	
+	/**
+	 * @param parser the parser running on a cache miss
+	 * @param maxSize the maximum number of command lines kept
+	 */
+	public CachingParser(DefaultParser parser, final int maxSize) {
+		if (maxSize <= 0)
+			throw new IllegalArgumentException("The size of the cache must be positive: " + maxSize);
+		
+		this.parser = parser;
+		this.maxSize = maxSize;
+		this.cache = new LinkedHashMap<Key, CommandLine>(16, 0.75f, true) {
+			
+			private static final long serialVersionUID = 5106431398853562164L;
+			
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, CommandLine> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+	
+	@Override
+	public CommandLine parse(Options options, String[] arguments) throws ParseException {
+		return parse(options, arguments, null, false);
+	}
+	
+	@Override
+	public CommandLine parse(Options options, String[] arguments, boolean stopAtNonOption) throws ParseException {
+		return parse(options, arguments, null, stopAtNonOption);
+	}
+	
+	/**
+	 * Returns the cached command line parsed from the same arguments with the same options, or parses them.
+	 *
+	 * @param options the specified options
+	 * @param arguments the command line arguments
+	 * @param props the default values of the options, the result is not cached if they are given
+	 * @param stopAtNonOption if <tt>true</tt>, an unrecognized argument stops the parsing
+	 * @return the immutable command line
+	 * @throws ParseException
+	 */
+	public CommandLine parse(Options options, String[] arguments, Properties props, boolean stopAtNonOption) throws ParseException {
+		ParsePlan plan = options.compile();
+		if (props != null || arguments == null || hasResponseFile(arguments))
+			return parser.parse(plan, arguments, props, stopAtNonOption).snapshot();
+		
+		Key key = new Key(plan, arguments, stopAtNonOption);
+		CommandLine cmd;
+		synchronized (cache) {
+			cmd = cache.get(key);
+		}
+		if (cmd != null) {
+			hits.incrementAndGet();
+			return cmd;
+		}
+		
+		misses.incrementAndGet();
+		cmd = parser.parse(plan, arguments, (Properties) null, stopAtNonOption).snapshot();
+		
+		//the caller may change its array afterwards, the cache keeps its own copy
+		key = new Key(plan, arguments.clone(), stopAtNonOption);
+		synchronized (cache) {
+			cache.put(key, cmd);
+		}
+		
+		return cmd;
+	}
+	
+	/**
+	 * @return <tt>true</tt> if the parser expands the response files and an argument names one
+	 */
+	private boolean hasResponseFile(String[] arguments) {
+		if (!parser.isExpandResponseFiles())
+			return false;
+		
+		for (String argument : arguments) {
+			if (argument != null && argument.length() > 1 && argument.charAt(0) == '@')
+				return true;
+		}
+		
+		return false;
+	}
+	
+	public long getHitCount() {
+		return hits.get();
+	}
+	
+	public long getMissCount() {
+		return misses.get();
+	}
+	
+	public int getMaxSize() {
+		return maxSize;
+	}
+	
+	/**
+	 * @return the number of command lines cached
+	 */
+	public int size() {
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+	
+	/**
+	 * Removes every cached command line, the counters are kept.
+	 */
+	public void clear() {
+		synchronized (cache) {
+			cache.clear();
+		}
+	}
+	
+	/**
+	 * The arguments of a parse with the plan they were parsed against.
+	 */
+	private static final class Key {
+		
+		private final ParsePlan plan;
+		private final String[] arguments;
+		private final boolean stopAtNonOption;
+		private final int hash;
+		
+		Key(ParsePlan plan, String[] arguments, boolean stopAtNonOption) {
+			this.plan = plan;
+			this.arguments = arguments;
+			this.stopAtNonOption = stopAtNonOption;
+			this.hash = (System.identityHashCode(plan) * 31 + Arrays.hashCode(arguments)) * 31 + (stopAtNonOption ? 1 : 0);
+		}
+		
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+		
+		@Override
+		public boolean equals(Object o) {
+			if (o == this)
+				return true;
+			if (!(o instanceof Key))
+				return false;
+			
+			Key key = (Key) o;
+			return plan == key.plan && stopAtNonOption == key.stopAtNonOption && hash == key.hash
+					&& Arrays.equals(arguments, key.arguments);
+		}
+	}
+}
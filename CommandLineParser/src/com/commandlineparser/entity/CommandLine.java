@@ -1,11 +1,22 @@
 package com.commandlineparser.entity;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.nio.file.Path;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Properties;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.Stream;
 
 import com.commandlineparser.exception.ParseException;
 
@@ -13,22 +24,163 @@ public class CommandLine implements Serializable {
 	private static final long serialVersionUID = -132778968523808585L;
 	
 	/** the unrecognized options/arguments */
-	private final List<String> args = new LinkedList<>();
+	private final List<String> args;
 	
-	/** the processed options */
-	private final List<Option> options = new ArrayList<>();
+	/** the processed options, built from the occurrences below on first use when the command line was parsed */
+	private volatile List<Option> options;
 	
-	public CommandLine() {}
+	/** the plan the options were parsed against, <code>null</code> if the command line was built otherwise */
+	private final transient ParsePlan plan;
+	
+	/** the values of every occurrence, one occurrence after the other */
+	private transient String[] values;
+	private transient int valueCount;
+	
+	/** per occurrence: the option id, the position of its first value and the next occurrence of the option (-1) */
+	private transient int[] occurrenceIds;
+	private transient int[] valueStarts;
+	private transient int[] nextOccurrence;
+	private transient int occurrenceCount;
+	
+	/** per option id: the first and the last occurrence of the option (-1) and its number of values */
+	private transient int[] firstById;
+	private transient int[] lastById;
+	private transient int[] valueCountById;
+	
+	/** per option id: the layer of the option, <code>null</code> until an option is given a default value */
+	private transient ValueSource[] sourceById;
+	
+	/** per option id: the read-only view of the values of the option, created on first use */
+	private transient List<String>[] viewById;
+	
+	/** per occurrence: the first value converted to the type of the option, created on first use */
+	private transient volatile AtomicReferenceArray<Object> converted;
+	
+	/** stands for a value converted to <code>null</code> in {@link #converted} */
+	private static final Object NULL_VALUE = new Object();
+	
+	public CommandLine() {
+		this(new LinkedList<String>(), new ArrayList<Option>(), null);
+	}
+	
+	/**
+	 * Creates an empty command line storing the occurrences of the options of <code>plan</code> by their id.
+	 */
+	CommandLine(ParsePlan plan) {
+		this(new LinkedList<String>(), null, plan);
+		
+		int count = plan.optionCount();
+		this.values = new String[8];
+		this.occurrenceIds = new int[8];
+		this.valueStarts = new int[8];
+		this.nextOccurrence = new int[8];
+		this.firstById = new int[count];
+		this.lastById = new int[count];
+		this.valueCountById = new int[count];
+		Arrays.fill(firstById, -1);
+		Arrays.fill(lastById, -1);
+	}
+	
+	private CommandLine(List<String> args, List<Option> options, ParsePlan plan) {
+		this.args = args;
+		this.options = options;
+		this.plan = plan;
+	}
 	
 	public boolean hasOption(String opt) {
+		if (plan != null)
+			return idOf(opt) >= 0;
+		
 		return options.contains(resolveOption(opt));
 	}
 	
+	/**
+	 * @param handle the handle of the option
+	 * @return <tt>true</tt> if the option was given
+	 */
+	public boolean has(OptionHandle handle) {
+		if (handle.plan == plan && plan != null)
+			return firstById[handle.id] >= 0;
+		
+		return hasOption(handle.getKey());
+	}
+	
+	/**
+	 * @param handle the handle of the option
+	 * @return the first value of the option, <code>null</code> if it was not given or has no value
+	 */
+	public String value(OptionHandle handle) {
+		List<String> values = values(handle);
+		
+		return values.isEmpty() ? null : values.get(0);
+	}
+	
+	/**
+	 * Returns the values of every occurrence of the option. For a command line parsed against the plan of the
+	 * handle, the list is a read-only view of the values held by this command line and is not copied.
+	 * 
+	 * @param handle the handle of the option
+	 * @return the values, an empty list if the option was not given or has no value
+	 */
+	public List<String> values(OptionHandle handle) {
+		if (handle.plan == plan && plan != null)
+			return valuesOf(handle.id);
+		
+		String[] values = getOptionValues(handle.getKey());
+		return values != null ? Collections.unmodifiableList(Arrays.asList(values)) : Collections.<String>emptyList();
+	}
+	
 	public boolean hasOption(char opt) {
 		return hasOption(String.valueOf(opt));
 	}
 	
+	/**
+	 * Returns the layer the option comes from: {@link ValueSource#COMMAND_LINE} if it was given as an argument, or
+	 * the layer of its default value, see {@link DefaultSources}.
+	 * 
+	 * @param opt the name of the option
+	 * @return the layer of the option, <code>null</code> if the option is absent
+	 */
+	public ValueSource getSource(String opt) {
+		if (plan == null)
+			return hasOption(opt) ? ValueSource.COMMAND_LINE : null;
+		
+		return sourceOf(idOf(opt));
+	}
+	
+	/**
+	 * @see #getSource(String)
+	 */
+	public ValueSource getSource(OptionHandle handle) {
+		if (handle.plan == plan && plan != null)
+			return sourceOf(firstById[handle.id] >= 0 ? handle.id : -1);
+		
+		return getSource(handle.getKey());
+	}
+	
+	private ValueSource sourceOf(int id) {
+		if (id < 0)
+			return null;
+		
+		return sourceById != null && sourceById[id] != null ? sourceById[id] : ValueSource.COMMAND_LINE;
+	}
+	
+	/**
+	 * Returns the first value of the option converted to the type of the option. For a parsed command line, the 
+	 * value is converted on the first call only and kept with its occurrence, so that the command line can be 
+	 * shared by threads converting each value at most once. The values owning a resource or holding several values,
+	 * a <code>FileInputStream</code> or a <code>File[]</code> for instance, are converted again on each call.
+	 * 
+	 * @param opt the name of the option
+	 * @return the converted value, <code>null</code> if the option was not given or has no value
+	 * @throws ParseException if the value cannot be converted
+	 */
 	public Object getParsedOptionValue(String opt) throws ParseException {
+		if (plan != null) {
+			int id = Util.leadingHyphens(opt) == 0 ? idOf(opt) : -1;
+			return id >= 0 ? parsedValueOf(id) : null;
+		}
+		
 		String res = getOptionValue(opt);
 		Option option = resolveOption(opt);
 		
@@ -38,6 +190,166 @@ public class CommandLine implements Serializable {
 		return TypeHandler.createValue(res, option.getType());
 	}
 	
+	/**
+	 * Returns the first value of the option as a <code>long</code>, parsed from its characters without boxing.
+	 * 
+	 * @param opt the name of the option
+	 * @param defaultValue the value returned if the option was not given or has no value
+	 * @return the value
+	 * @throws ParseException if the value is not a <code>long</code>
+	 */
+	public long getLong(String opt, long defaultValue) throws ParseException {
+		return toLong(valuesOf(opt), defaultValue);
+	}
+	
+	public long getLong(OptionHandle handle, long defaultValue) throws ParseException {
+		return toLong(values(handle), defaultValue);
+	}
+	
+	/**
+	 * @see #getLong(String, long)
+	 */
+	public int getInt(String opt, int defaultValue) throws ParseException {
+		return toInt(valuesOf(opt), defaultValue);
+	}
+	
+	public int getInt(OptionHandle handle, int defaultValue) throws ParseException {
+		return toInt(values(handle), defaultValue);
+	}
+	
+	/**
+	 * @see #getLong(String, long)
+	 */
+	public double getDouble(String opt, double defaultValue) throws ParseException {
+		return toDouble(valuesOf(opt), defaultValue);
+	}
+	
+	public double getDouble(OptionHandle handle, double defaultValue) throws ParseException {
+		return toDouble(values(handle), defaultValue);
+	}
+	
+	/**
+	 * Returns the values of the option as <code>long</code>s, each value holding one number or several numbers 
+	 * separated by commas: <code>--ids 1,2,3</code> or <code>--ids 1 --ids 2,3</code>. The numbers are parsed 
+	 * from the characters of the values into an array of the exact size.
+	 * 
+	 * @param opt the name of the option
+	 * @return the numbers, <code>null</code> if the option was not given or has no value
+	 * @throws ParseException if a value is not a list of <code>long</code>s
+	 */
+	public long[] getLongArray(String opt) throws ParseException {
+		List<String> values = valuesOf(opt);
+		
+		return values.isEmpty() ? null : TypeHandler.createLongArray(values);
+	}
+	
+	public long[] getLongArray(OptionHandle handle) throws ParseException {
+		List<String> values = values(handle);
+		
+		return values.isEmpty() ? null : TypeHandler.createLongArray(values);
+	}
+	
+	/**
+	 * @see #getLongArray(String)
+	 */
+	public int[] getIntArray(String opt) throws ParseException {
+		List<String> values = valuesOf(opt);
+		
+		return values.isEmpty() ? null : TypeHandler.createIntArray(values);
+	}
+	
+	public int[] getIntArray(OptionHandle handle) throws ParseException {
+		List<String> values = values(handle);
+		
+		return values.isEmpty() ? null : TypeHandler.createIntArray(values);
+	}
+	
+	/**
+	 * @see #getLongArray(String)
+	 */
+	public double[] getDoubleArray(String opt) throws ParseException {
+		List<String> values = valuesOf(opt);
+		
+		return values.isEmpty() ? null : TypeHandler.createDoubleArray(values);
+	}
+	
+	public double[] getDoubleArray(OptionHandle handle) throws ParseException {
+		List<String> values = values(handle);
+		
+		return values.isEmpty() ? null : TypeHandler.createDoubleArray(values);
+	}
+	
+	private static long toLong(List<String> values, long defaultValue) throws ParseException {
+		if (values.isEmpty())
+			return defaultValue;
+		
+		String value = values.get(0);
+		return TypeHandler.parseLong(value, 0, value.length());
+	}
+	
+	private static int toInt(List<String> values, int defaultValue) throws ParseException {
+		if (values.isEmpty())
+			return defaultValue;
+		
+		String value = values.get(0);
+		return TypeHandler.parseInt(value, 0, value.length());
+	}
+	
+	private static double toDouble(List<String> values, double defaultValue) throws ParseException {
+		if (values.isEmpty())
+			return defaultValue;
+		
+		String value = values.get(0);
+		return TypeHandler.parseDouble(value, 0, value.length());
+	}
+	
+	/**
+	 * @see #getParsedOptionValue(String)
+	 */
+	public Object getParsedOptionValue(OptionHandle handle) throws ParseException {
+		if (handle.plan == plan && plan != null)
+			return firstById[handle.id] >= 0 ? parsedValueOf(handle.id) : null;
+		
+		return getParsedOptionValue(handle.getKey());
+	}
+	
+	/**
+	 * Returns the files matched by the values of the option, each value being a glob pattern expanded as the stream
+	 * is consumed, see {@link TypeHandler#expandFiles(String)}.
+	 * 
+	 * @param opt the name of the option
+	 * @return the matching paths, the stream must be closed
+	 * @throws ParseException if a value is not a valid pattern
+	 */
+	public Stream<Path> getFiles(String opt) throws ParseException {
+		return expandFiles(valuesOf(opt), null);
+	}
+	
+	/**
+	 * Returns the files matched by the values of the option, the directories being listed in parallel by 
+	 * <code>pool</code>, see {@link TypeHandler#expandFiles(String, ForkJoinPool)}.
+	 * 
+	 * @param opt the name of the option
+	 * @param pool the pool listing the directories
+	 * @return the matching paths in no particular order, the stream must be closed
+	 * @throws ParseException if a value is not a valid pattern
+	 */
+	public Stream<Path> getFiles(String opt, ForkJoinPool pool) throws ParseException {
+		return expandFiles(valuesOf(opt), pool);
+	}
+	
+	private static Stream<Path> expandFiles(List<String> patterns, ForkJoinPool pool) throws ParseException {
+		//every pattern is checked before the first walk starts
+		List<FileGlob> globs = new ArrayList<>(patterns.size());
+		for (String pattern : patterns)
+			globs.add(new FileGlob(pattern));
+		
+		if (globs.size() == 1)
+			return pool != null ? globs.get(0).stream(pool) : globs.get(0).stream();
+		
+		return globs.stream().flatMap(glob -> pool != null ? glob.stream(pool) : glob.stream());
+	}
+	
 	public String getOptionValue(String opt) {
 		String[] values = getOptionValues(opt);
 		
@@ -49,6 +361,15 @@ public class CommandLine implements Serializable {
 	}
 	
 	public String[] getOptionValues(String opt) {
+		if (plan != null) {
+			int id = Util.leadingHyphens(opt) == 0 ? idOf(opt) : -1;
+			if (id < 0 || valueCountById[id] == 0)
+				return null;
+			
+			List<String> values = valuesOf(id);
+			return values.toArray(new String[values.size()]);
+		}
+		
 		List<String> values = new ArrayList<>();
 		
 		for (Option option : options) {
@@ -61,6 +382,12 @@ public class CommandLine implements Serializable {
 	}
 	
 	private Option resolveOption(String opt) {
+		if (plan != null) {
+			//the definition of the option, the values are not needed
+			int id = idOf(opt);
+			return id >= 0 ? plan.optionAt(id) : null;
+		}
+		
 		opt = Util.stripLeadingHyphens(opt);
 		
 		for (Option option : options) {
@@ -90,6 +417,21 @@ public class CommandLine implements Serializable {
 	public Properties getOptionProperties(String opt) {
 		Properties props = new Properties();
 		
+		if (plan != null) {
+			int id = Util.leadingHyphens(opt) == 0 ? idOf(opt) : -1;
+			for (int i = id >= 0 ? firstById[id] : -1; i != -1; i = nextOccurrence[i]) {
+				int start = valueStarts[i];
+				int end = valueEnd(i);
+				if (end - start >= 2) {
+					props.put(values[start], values[start + 1]);
+				} else if (end - start == 1) {
+					props.put(values[start], "true");
+				}
+			}
+			
+			return props;
+		}
+		
 		for (Option option : options) {
 			if (opt.equals(option.getOpt()) || opt.equals(option.getLongOpt())) {
 				List<String> values = option.getValuesList();
@@ -120,17 +462,314 @@ public class CommandLine implements Serializable {
 	}
 	
 	protected void addOption(Option opt) {
-		options.add(opt);
+		if (plan == null) {
+			options.add(opt);
+			return;
+		}
+		
+		Option option = plan.getOption(opt.getKey());
+		if (option == null)
+			throw new IllegalArgumentException("No option '" + opt.getKey() + "'");
+		addOccurrence(plan.indexOf(option));
+		for (String value : opt.getValuesList())
+			addValue(value);
+	}
+	
+	/**
+	 * Adds an occurrence of the option found at position <code>id</code> in the plan of this command line. The
+	 * values added next belong to it.
+	 */
+	void addOccurrence(int id) {
+		if (occurrenceCount == occurrenceIds.length) {
+			int length = occurrenceCount * 2;
+			occurrenceIds = Arrays.copyOf(occurrenceIds, length);
+			valueStarts = Arrays.copyOf(valueStarts, length);
+			nextOccurrence = Arrays.copyOf(nextOccurrence, length);
+		}
+		
+		int occurrence = occurrenceCount++;
+		occurrenceIds[occurrence] = id;
+		valueStarts[occurrence] = valueCount;
+		nextOccurrence[occurrence] = -1;
+		if (lastById[id] >= 0)
+			nextOccurrence[lastById[id]] = occurrence;
+		else
+			firstById[id] = occurrence;
+		lastById[id] = occurrence;
+		
+		//the options are built again with the new occurrence
+		options = null;
+	}
+	
+	/**
+	 * Adds an occurrence of an option given a default value by <code>source</code>.
+	 */
+	void addOccurrence(int id, ValueSource source) {
+		addOccurrence(id);
+		if (source != ValueSource.COMMAND_LINE) {
+			if (sourceById == null)
+				sourceById = new ValueSource[firstById.length];
+			sourceById[id] = source;
+		}
+	}
+	
+	/**
+	 * Adds a value to the last occurrence.
+	 */
+	void addValue(String value) {
+		if (valueCount == values.length)
+			values = Arrays.copyOf(values, valueCount * 2);
+		
+		values[valueCount++] = value;
+		valueCountById[occurrenceIds[occurrenceCount - 1]]++;
 	}
 	
 	public Iterator<Option> iterator() {
-		return options.iterator();
+		return options().iterator();
 	}
 	
 	public Option[] getOptions() {
+		List<Option> options = options();
+		
 		return options.toArray(new Option[options.size()]);
 	}
 	
+	/**
+	 * @return the processed options; for a parsed command line, a copy of the definition of each occurrence
+	 * holding a read-only view of its values
+	 */
+	private List<Option> options() {
+		List<Option> result = options;
+		if (result == null) {
+			Option[] occurrences = new Option[occurrenceCount];
+			for (int i = 0; i < occurrenceCount; i++)
+				occurrences[i] = plan.optionAt(occurrenceIds[i]).withValues(new Values(i, -1));
+			
+			result = Collections.unmodifiableList(Arrays.asList(occurrences));
+			options = result;
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * @return the plan the options were parsed against, <code>null</code> if the command line was built otherwise
+	 */
+	ParsePlan getPlan() {
+		return plan;
+	}
+	
+	/**
+	 * @return the id of the option named <code>opt</code> if it was given, otherwise -1
+	 */
+	private int idOf(String opt) {
+		Option option = plan.getOption(opt);
+		if (option == null)
+			return -1;
+		
+		int id = plan.indexOf(option);
+		return firstById[id] >= 0 ? id : -1;
+	}
+	
+	/**
+	 * @return the values of the option named <code>opt</code> as {@link #getOptionValues(String)}, without copying
+	 * them for a parsed command line
+	 */
+	private List<String> valuesOf(String opt) {
+		if (plan != null) {
+			int id = Util.leadingHyphens(opt) == 0 ? idOf(opt) : -1;
+			return id >= 0 ? valuesOf(id) : Collections.<String>emptyList();
+		}
+		
+		String[] values = getOptionValues(opt);
+		return values != null ? Arrays.asList(values) : Collections.<String>emptyList();
+	}
+	
+	private List<String> valuesOf(int id) {
+		if (valueCountById[id] == 0)
+			return Collections.emptyList();
+		
+		List<String> view = viewById != null ? viewById[id] : null;
+		if (view == null) {
+			view = new Values(-1, id);
+			viewById()[id] = view;
+		}
+		
+		return view;
+	}
+	
+	/**
+	 * @return the first value of the option converted to its type, <code>null</code> if it has no value
+	 */
+	private Object parsedValueOf(int id) throws ParseException {
+		//the first value is held by the first occurrence having values
+		int occurrence = firstById[id];
+		while (occurrence != -1 && valueEnd(occurrence) == valueStarts[occurrence])
+			occurrence = nextOccurrence[occurrence];
+		if (occurrence == -1)
+			return null;
+		
+		Object type = plan.optionAt(id).getType();
+		AtomicReferenceArray<Object> cache = converted();
+		if (occurrence >= cache.length() || !isShareable(type))
+			return TypeHandler.createValue(values[valueStarts[occurrence]], type);
+		
+		Object value = cache.get(occurrence);
+		if (value == null) {
+			synchronized (cache) {
+				value = cache.get(occurrence);
+				if (value == null) {
+					value = TypeHandler.createValue(values[valueStarts[occurrence]], type);
+					if (value == null)
+						value = NULL_VALUE;
+					cache.set(occurrence, value);
+				}
+			}
+		}
+		
+		return value != NULL_VALUE ? value : null;
+	}
+	
+	/**
+	 * Returns <tt>false</tt> for the types whose values cannot be shared by the callers: the values closed by their
+	 * user, streams and readers, and the values holding other values, arrays and collections.
+	 */
+	private static boolean isShareable(Object type) {
+		if (!(type instanceof Class))
+			return true;
+		
+		Class<?> cls = (Class<?>) type;
+		return !cls.isArray() && !AutoCloseable.class.isAssignableFrom(cls) && !Collection.class.isAssignableFrom(cls)
+				&& !Iterator.class.isAssignableFrom(cls);
+	}
+	
+	private AtomicReferenceArray<Object> converted() {
+		AtomicReferenceArray<Object> cache = converted;
+		if (cache == null) {
+			synchronized (this) {
+				cache = converted;
+				if (cache == null) {
+					cache = new AtomicReferenceArray<>(occurrenceCount);
+					converted = cache;
+				}
+			}
+		}
+		
+		return cache;
+	}
+	
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private List<String>[] viewById() {
+		if (viewById == null)
+			viewById = new List[firstById.length];
+		
+		return viewById;
+	}
+	
+	private int valueEnd(int occurrence) {
+		return occurrence + 1 < occurrenceCount ? valueStarts[occurrence + 1] : valueCount;
+	}
+	
+	/**
+	 * Returns an immutable copy of this command line, which can be shared: its arguments, its options and their
+	 * values cannot be changed.
+	 * 
+	 * @return the copy
+	 */
+	CommandLine snapshot() {
+		List<String> argsCopy = Collections.unmodifiableList(new ArrayList<>(args));
+		if (plan == null) {
+			List<Option> frozen = new ArrayList<>(options.size());
+			for (Option option : options)
+				frozen.add(option.withValues(Collections.unmodifiableList(new ArrayList<>(option.getValuesList()))));
+			
+			return new CommandLine(argsCopy, Collections.unmodifiableList(frozen), null);
+		}
+		
+		CommandLine copy = new CommandLine(argsCopy, null, plan);
+		copy.values = Arrays.copyOf(values, valueCount);
+		copy.valueCount = valueCount;
+		copy.occurrenceIds = Arrays.copyOf(occurrenceIds, occurrenceCount);
+		copy.valueStarts = Arrays.copyOf(valueStarts, occurrenceCount);
+		copy.nextOccurrence = Arrays.copyOf(nextOccurrence, occurrenceCount);
+		copy.occurrenceCount = occurrenceCount;
+		copy.firstById = firstById.clone();
+		copy.lastById = lastById.clone();
+		copy.valueCountById = valueCountById.clone();
+		copy.sourceById = sourceById != null ? sourceById.clone() : null;
+		
+		return copy;
+	}
+	
+	/**
+	 * Writes the options with copies of their values, the occurrences are not serialized.
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		List<Option> written = options;
+		if (plan != null) {
+			written = new ArrayList<>(occurrenceCount);
+			for (int i = 0; i < occurrenceCount; i++)
+				written.add(plan.optionAt(occurrenceIds[i]).withValues(new ArrayList<>(new Values(i, -1))));
+		}
+		
+		ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("args", args);
+		fields.put("options", written);
+		out.writeFields();
+	}
+	
+	/**
+	 * The values of one occurrence, or of every occurrence of an option, read from the flat value storage.
+	 */
+	private final class Values extends AbstractList<String> implements RandomAccess {
+		
+		/** the occurrence, -1 for every occurrence of the option */
+		private final int occurrence;
+		private final int id;
+		
+		/** for every occurrence of the option: the position of each value in the storage, built on first use */
+		private volatile int[] positions;
+		
+		Values(int occurrence, int id) {
+			this.occurrence = occurrence;
+			this.id = id;
+		}
+		
+		@Override
+		public String get(int index) {
+			if (index < 0 || index >= size())
+				throw new IndexOutOfBoundsException("Index: " + index);
+			
+			if (occurrence >= 0)
+				return values[valueStarts[occurrence] + index];
+			
+			return values[positions()[index]];
+		}
+		
+		/**
+		 * @return the position of each value of the option, built again if the option was given values since
+		 */
+		private int[] positions() {
+			int[] result = positions;
+			if (result == null || result.length != valueCountById[id]) {
+				result = new int[valueCountById[id]];
+				int count = 0;
+				for (int i = firstById[id]; i != -1; i = nextOccurrence[i]) {
+					for (int value = valueStarts[i], end = valueEnd(i); value < end; value++)
+						result[count++] = value;
+				}
+				positions = result;
+			}
+			
+			return result;
+		}
+		
+		@Override
+		public int size() {
+			return occurrence >= 0 ? valueEnd(occurrence) - valueStarts[occurrence] : valueCountById[id];
+		}
+	}
+	
 	/**
 	 * A nested builder class to create <code>CommandLine</code> instance using descriptive methods.
 	 * 
@@ -0,0 +1,84 @@
+package com.commandlineparser.entity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.commandlineparser.exception.MissingOptionException;
+import com.commandlineparser.exception.ParseException;
+
+/**
+ * The listener behind {@link DefaultParser#parse} and {@link DefaultParser#tryParse}: it builds a
+ * {@link CommandLine} storing each occurrence of an option with its values.
+ */
+final class CommandLineListener implements ParseListener {
+
+	private final ParsePlan plan;
+	private final CommandLine cmd;
+	
+	/** The errors found so far, <code>null</code> if the first error is thrown */
+	private final List<ParseError> errors;
+	
+	/** The required options not found, thrown together at the end of the parse */
+	private final List<Object> missing = new ArrayList<>();
+	
+	/** if <tt>false</tt>, the exceptions thrown do not record their stack trace */
+	private final boolean writableStackTrace;
+	
+	CommandLineListener(ParsePlan plan, boolean collectErrors, boolean writableStackTrace) {
+		this.plan = plan;
+		this.cmd = new CommandLine(plan);
+		this.errors = collectErrors ? new ArrayList<ParseError>() : null;
+		this.writableStackTrace = writableStackTrace;
+	}
+	
+	@Override
+	public void onOption(Option option) {
+		cmd.addOccurrence(plan.indexOf(option));
+	}
+	
+	@Override
+	public void onDefault(Option option, ValueSource source) {
+		cmd.addOccurrence(plan.indexOf(option), source);
+	}
+	
+	@Override
+	public void onValue(Option option, String value) {
+		cmd.addValue(value);
+	}
+	
+	@Override
+	public void onPositional(String argument) {
+		cmd.addArg(argument);
+	}
+	
+	@Override
+	public void onEndOfOptions() {
+		//the following arguments arrive as positional arguments
+	}
+	
+	@Override
+	public void onError(ParseError error) throws ParseException {
+		if (errors != null) {
+			errors.add(error);
+		} else if (error.getKind() == ParseError.Kind.MISSING_OPTION) {
+			missing.add(error.getMissing());
+		} else {
+			throw error.toException(writableStackTrace);
+		}
+	}
+	
+	/**
+	 * @return the command line
+	 * @throws MissingOptionException listing every required option not found, unless the errors are collected
+	 */
+	CommandLine getCommandLine() throws MissingOptionException {
+		if (!missing.isEmpty())
+			throw new MissingOptionException(missing, writableStackTrace);
+		
+		return cmd;
+	}
+	
+	List<ParseError> getErrors() {
+		return errors;
+	}
+}
@@ -0,0 +1,52 @@
+package com.commandlineparser.entity;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of a {@link CompletionEngine} query: either the options the argument under the cursor can be completed
+ * to, or the option whose value is being typed.
+ */
+public final class Completion {
+
+	private final List<String> candidates;
+	private final Option valueOption;
+	
+	Completion(List<String> candidates, Option valueOption) {
+		this.candidates = Collections.unmodifiableList(candidates);
+		this.valueOption = valueOption;
+	}
+	
+	/**
+	 * @return the completed arguments, each of them starting with the typed part of the argument
+	 */
+	public List<String> getCandidates() {
+		return candidates;
+	}
+	
+	/**
+	 * @return <tt>true</tt> if the argument under the cursor is the value of an option
+	 */
+	public boolean isValue() {
+		return valueOption != null;
+	}
+	
+	/**
+	 * @return the option whose value is being typed, <code>null</code> if the argument is not a value
+	 */
+	public Option getValueOption() {
+		return valueOption;
+	}
+	
+	/**
+	 * @return the name of the argument of the option whose value is being typed, <code>null</code> if there is none
+	 */
+	public String getValueHint() {
+		return valueOption != null && valueOption.hasArgName() ? valueOption.getArgName() : null;
+	}
+	
+	@Override
+	public String toString() {
+		return "[ Completion: " + (valueOption != null ? "value of " + valueOption.getKey() : candidates) + " ]";
+	}
+}
@@ -0,0 +1,142 @@
+package com.commandlineparser.entity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.commandlineparser.exception.ParseException;
+
+/**
+ * Answers tab completion queries on a partial command line.
+ * <p>
+ * The arguments before the cursor are fed to an {@link IncrementalParser}, which tells whether the argument under the
+ * cursor is the value of an option, a positional argument or an option. Options are completed with the prefix
+ * indexes of the {@link ParsePlan}: the sorted short keys and the long option trie also used for the abbreviations, so
+ * a query costs the length of the command line plus the number of candidates whatever the number of options. An
+ * option of a group in which another option has been selected is not proposed.
+ * <p>
+ * The arguments before the cursor are not checked, invalid ones are skipped.
+ */
+public final class CompletionEngine {
+
+	/** the listener of the parse of the arguments before the cursor, only the state of the parse is used */
+	private static final ParseListener IGNORE = new ParseListener() {
+		
+		@Override
+		public void onOption(Option option) {
+		}
+		
+		@Override
+		public void onValue(Option option, String value) {
+		}
+		
+		@Override
+		public void onPositional(String argument) {
+		}
+		
+		@Override
+		public void onEndOfOptions() {
+		}
+		
+		@Override
+		public void onError(ParseError error) {
+			//an invalid argument is skipped
+		}
+	};
+	
+	private final DefaultParser parser = new DefaultParser();
+	
+	/**
+	 * Completes the argument at <code>index</code>, using its characters before <code>offset</code>.
+	 *
+	 * @param options the specified options
+	 * @param arguments the command line arguments typed so far
+	 * @param index the position of the argument under the cursor, <code>arguments.length</code> for a new argument
+	 * @param offset the position of the cursor in the argument
+	 * @return the candidates
+	 * @throws IllegalArgumentException if <code>index</code> or <code>offset</code> is out of range
+	 */
+	public Completion complete(Options options, String[] arguments, int index, int offset) {
+		return complete(options.compile(), arguments, index, offset, false);
+	}
+	
+	/**
+	 * Completes the argument at <code>index</code>, using its characters before <code>offset</code>.
+	 *
+	 * @param plan the compiled options
+	 * @param arguments the command line arguments typed so far
+	 * @param index the position of the argument under the cursor, <code>arguments.length</code> for a new argument
+	 * @param offset the position of the cursor in the argument
+	 * @param stopAtNonOption if <tt>true</tt>, an unrecognized argument stops the parsing
+	 * @return the candidates
+	 * @throws IllegalArgumentException if <code>index</code> or <code>offset</code> is out of range
+	 */
+	public Completion complete(ParsePlan plan, String[] arguments, int index, int offset, boolean stopAtNonOption) {
+		if (index < 0 || index > arguments.length)
+			throw new IllegalArgumentException("The index " + index + " is not between 0 and " + arguments.length);
+		int length = index < arguments.length ? arguments[index].length() : 0;
+		if (offset < 0 || offset > length)
+			throw new IllegalArgumentException("The offset " + offset + " is not between 0 and " + length);
+		
+		IncrementalParser incremental = parser.startParse(plan, null, stopAtNonOption, IGNORE);
+		try {
+			for (int i = 0; i < index; i++)
+				incremental.feed(arguments[i]);
+		} catch (ParseException e) {    //cannot happen, the listener ignores the errors
+			throw new IllegalStateException(e);
+		}
+		ParseState state = incremental.state();
+		
+		String word = "";
+		if (index < arguments.length)
+			word = arguments[index].substring(0, offset);
+		List<String> candidates = new ArrayList<>();
+		
+		Option pending = state.getPendingOption();
+		if (state.isEndOfOptions())
+			return new Completion(candidates, null);
+		if (pending != null && (state.isValueRequired() || !word.startsWith("-")))
+			return new Completion(candidates, pending);
+		if (!word.isEmpty() && word.charAt(0) != '-')    //a positional argument
+			return new Completion(candidates, null);
+		
+		int hyphens = Util.leadingHyphens(word);
+		int equals = word.indexOf('=');
+		if (equals != -1) {
+			Option option = plan.getOption(word, hyphens, equals);
+			if (option == null && equals > hyphens) {
+				LongOptionTrie.Match match = new LongOptionTrie.Match();
+				plan.matchLongOption(word, hyphens, equals, -1, match);
+				option = match.getOption();
+			}
+			
+			return new Completion(candidates, option != null && option.acceptsArg() ? option : null);
+		}
+		
+		String name = word.substring(hyphens);
+		List<Option> found = new ArrayList<>();
+		if (hyphens < 2) {
+			plan.collectShortOptions(name, found);
+			addCandidates(plan, state, found, "-", true, candidates);
+			found.clear();
+		}
+		
+		plan.collectLongOptions(name, found);
+		addCandidates(plan, state, found, hyphens == 1 && !name.isEmpty() ? "-" : "--", false, candidates);
+		
+		return new Completion(candidates, null);
+	}
+	
+	private void addCandidates(ParsePlan plan, ParseState state, List<Option> found, String hyphens, boolean shortName,
+			List<String> candidates) {
+		for (Option option : found) {
+			OptionGroup group = plan.getOptionGroup(option);
+			if (group != null) {
+				String selected = state.getSelected(group);
+				if (selected != null && !selected.equals(option.getKey()))
+					continue;
+			}
+			
+			candidates.add(hyphens + (shortName ? option.getOpt() : option.getLongOpt()));
+		}
+	}
+}
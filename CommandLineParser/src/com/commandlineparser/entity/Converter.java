@@ -0,0 +1,18 @@
+package com.commandlineparser.entity;
+
+import com.commandlineparser.exception.ParseException;
+
+/**
+ * Converts the value of an option to the type of the option, see {@link TypeHandler#register(Class, Converter)}.
+ *
+ * @param <T> the type of the converted values
+ */
+public interface Converter<T> {
+
+	/**
+	 * @param str the value of the option
+	 * @return the converted value
+	 * @throws ParseException if the value cannot be converted
+	 */
+	T convert(String str) throws ParseException;
+}
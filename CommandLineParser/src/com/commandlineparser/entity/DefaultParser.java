@@ -1,149 +1,555 @@
 package com.commandlineparser.entity;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-import com.commandlineparser.exception.AlreadySelectedException;
-import com.commandlineparser.exception.AmbiguousOptionException;
-import com.commandlineparser.exception.MissingArgumentException;
-import com.commandlineparser.exception.MissingOptionException;
 import com.commandlineparser.exception.ParseException;
-import com.commandlineparser.exception.UnrecognizedOptionException;
 
+/**
+ * The default command line parser.
+ * <p>
+ * The parser holds no state: the {@link Options} are compiled into an immutable {@link ParsePlan} and everything
+ * that changes during a parse is kept in a {@link ParseContext} created for each call. A single parser and a single
+ * <code>Options</code> instance can therefore be used by several threads at the same time.
+ * <p>
+ * The parser pushes what it finds to a {@link ParseListener}. The methods returning a {@link CommandLine} use a 
+ * listener building it, the methods taking a listener materialize nothing.
+ */
 public class DefaultParser implements CommandLineParser {
+
+	/** if <tt>true</tt>, the arguments <code>@file</code> are replaced by the arguments of the file */
+	private final boolean expandResponseFiles;
 	
-	protected CommandLine cmd;
-	protected Options options;
-	
-	/** 
-	 * A flag indicating how unrecognized tokens are handled.
-	 * if <tt>true</tt>, stop the parsing and add the remaining tokens to the args list in {@link CommandLine}
-	 */
-	protected boolean stopAtNonOption;
-	protected String currentToken;
+	/** if <tt>false</tt>, the parse exceptions thrown do not record their stack trace */
+	private final boolean writableStackTrace;
 	
-	/** The last option parsed	 */
-	protected Option currentOption;
+	public DefaultParser() {
+		this(false);
+	}
 	
-	/** A flag indicating if tokens should no longer be analyzed and simply added as argument of command line */
-	protected boolean skipParsing;
+	/**
+	 * Creates a parser expanding javac-style response files if <code>expandResponseFiles</code> is <tt>true</tt>: an
+	 * argument <code>@file</code>, before <code>--</code>, is replaced by the arguments read from the file, which 
+	 * may name other response files. The file is split into arguments as a shell does and its path is relative to 
+	 * the working directory. The files read are cached until they are modified.
+	 * 
+	 * @param expandResponseFiles if <tt>true</tt>, the response files are expanded
+	 */
+	public DefaultParser(boolean expandResponseFiles) {
+		this(expandResponseFiles, true);
+	}
 	
-	/** The required options and groups expected to be found when parsing the command line */
-	protected List expectedOpts;
+	/**
+	 * Creates a parser expanding the response files if <code>expandResponseFiles</code> is <tt>true</tt>, see 
+	 * {@link #DefaultParser(boolean)}. A parse exception reports a user error rather than a bug: when 
+	 * <code>writableStackTrace</code> is <tt>false</tt>, the exceptions thrown by this parser skip the stack trace, 
+	 * which makes them much cheaper to create.
+	 * 
+	 * @param expandResponseFiles if <tt>true</tt>, the response files are expanded
+	 * @param writableStackTrace if <tt>false</tt>, the parse exceptions thrown do not record their stack trace
+	 */
+	public DefaultParser(boolean expandResponseFiles, boolean writableStackTrace) {
+		this.expandResponseFiles = expandResponseFiles;
+		this.writableStackTrace = writableStackTrace;
+	}
 	
+	/**
+	 * @return <tt>true</tt> if the arguments <code>@file</code> are replaced by the arguments of the file
+	 */
+	boolean isExpandResponseFiles() {
+		return expandResponseFiles;
+	}
+
 	@Override
 	public CommandLine parse(Options options, String[] arguments) throws ParseException {
-		return parse(options, arguments, null);
+		return parse(options, arguments, (Properties) null);
 	}
 	
 	public CommandLine parse(Options options, String[] arguments, Properties props) throws ParseException {
 		return parse(options, arguments, props, false);
 	}
-
+	
 	@Override
 	public CommandLine parse(Options options, String[] arguments, boolean stopAtNonOption) throws ParseException {
 		return parse(options, arguments, null, stopAtNonOption);
 	}
 	
 	public CommandLine parse(Options options, String[] arguments, Properties props, boolean stopAtNonOption) throws ParseException {
-		this.options = options;
-		this.stopAtNonOption = stopAtNonOption;
-		skipParsing = false;
-		currentOption = null;
-		expectedOpts = new ArrayList(options.getRequiredOptions());    //why not use generic type?
-		
-		for (OptionGroup group : options.getOptionGroups()) {
-			group.setSelected(null);
-		}
+		return parse(options.compile(), arguments, props, stopAtNonOption);
+	}
+	
+	/**
+	 * Parses the arguments against a compiled plan.
+	 *
+	 * @param plan the compiled options
+	 * @param arguments the command line arguments
+	 * @param props the default values of the options, may be null
+	 * @param stopAtNonOption if <tt>true</tt>, an unrecognized argument stops the parsing
+	 * @return the parsed command line
+	 * @throws ParseException
+	 */
+	public CommandLine parse(ParsePlan plan, String[] arguments, Properties props, boolean stopAtNonOption) throws ParseException {
+		CommandLineListener listener = new CommandLineListener(plan, false, writableStackTrace);
+		parse(plan, arguments, props, stopAtNonOption, listener);
+		
+		return listener.getCommandLine();
+	}
+	
+	/**
+	 * Parses the arguments, reporting the options, values and errors to <code>listener</code> as they are found.
+	 * 
+	 * @param options the specified options
+	 * @param arguments the command line arguments
+	 * @param props the default values of the options, may be null
+	 * @param stopAtNonOption if <tt>true</tt>, an unrecognized argument stops the parsing
+	 * @param listener receives the events of the parse
+	 * @throws ParseException if the listener stops the parsing
+	 */
+	public void parse(Options options, String[] arguments, Properties props, boolean stopAtNonOption, ParseListener listener) throws ParseException {
+		parse(options.compile(), arguments, props, stopAtNonOption, listener);
+	}
+	
+	/**
+	 * Parses the arguments against a compiled plan, reporting the options, values and errors to <code>listener</code>
+	 * as they are found. Nothing is allocated for the result: the listener receives the options of the plan and the
+	 * values as strings.
+	 * 
+	 * @param plan the compiled options
+	 * @param arguments the command line arguments
+	 * @param props the default values of the options, may be null
+	 * @param stopAtNonOption if <tt>true</tt>, an unrecognized argument stops the parsing
+	 * @param listener receives the events of the parse
+	 * @throws ParseException if the listener stops the parsing
+	 */
+	public void parse(ParsePlan plan, String[] arguments, Properties props, boolean stopAtNonOption, ParseListener listener) throws ParseException {
+		parse(plan, arguments, props, null, stopAtNonOption, listener);
+	}
+	
+	/**
+	 * Parses the arguments, giving the options absent from the command line the values of layered default sources.
+	 * 
+	 * @param options the specified options
+	 * @param arguments the command line arguments
+	 * @param sources the default values of the options, may be null
+	 * @return the parsed command line, {@link CommandLine#getSource(String)} tells where each option comes from
+	 * @throws ParseException
+	 */
+	public CommandLine parse(Options options, String[] arguments, DefaultSources sources) throws ParseException {
+		return parse(options.compile(), arguments, sources, false);
+	}
+	
+	/**
+	 * Parses the arguments against a compiled plan, giving the options absent from the command line the values of
+	 * layered default sources.
+	 * 
+	 * @param plan the compiled options
+	 * @param arguments the command line arguments
+	 * @param sources the default values of the options, may be null
+	 * @param stopAtNonOption if <tt>true</tt>, an unrecognized argument stops the parsing
+	 * @return the parsed command line, {@link CommandLine#getSource(String)} tells where each option comes from
+	 * @throws ParseException
+	 */
+	public CommandLine parse(ParsePlan plan, String[] arguments, DefaultSources sources, boolean stopAtNonOption) throws ParseException {
+		CommandLineListener listener = new CommandLineListener(plan, false, writableStackTrace);
+		parse(plan, arguments, null, sources, stopAtNonOption, listener);
 		
-		cmd = new CommandLine();
+		return listener.getCommandLine();
+	}
+	
+	/**
+	 * Parses the arguments against a compiled plan, reporting the options, values and errors to <code>listener</code>
+	 * as they are found. The options given a default value by <code>sources</code> are reported by
+	 * {@link ParseListener#onDefault}.
+	 * 
+	 * @param plan the compiled options
+	 * @param arguments the command line arguments
+	 * @param sources the default values of the options, may be null
+	 * @param stopAtNonOption if <tt>true</tt>, an unrecognized argument stops the parsing
+	 * @param listener receives the events of the parse
+	 * @throws ParseException if the listener stops the parsing
+	 */
+	public void parse(ParsePlan plan, String[] arguments, DefaultSources sources, boolean stopAtNonOption, ParseListener listener) throws ParseException {
+		parse(plan, arguments, null, sources, stopAtNonOption, listener);
+	}
+	
+	private void parse(ParsePlan plan, String[] arguments, Properties props, DefaultSources sources, boolean stopAtNonOption, 
+			ParseListener listener) throws ParseException {
+		ParseContext ctx = new ParseContext(plan, stopAtNonOption, listener);
 		
 		if (arguments != null) {
 			for (String argument : arguments)
-				handleToken(argument);
+				handleToken(ctx, argument);
 		}
 		
-		//check the arguments of the last option
-		checkRequiredArgs();
+		finish(ctx, props, sources);
+	}
+	
+	/**
+	 * Parses the arguments without throwing: every problem is recorded as a {@link ParseError} and the parsing 
+	 * goes on with the next argument.
+	 * 
+	 * @param options the specified options
+	 * @param arguments the command line arguments
+	 * @return the command line built from the valid arguments and the errors
+	 */
+	public ParseResult tryParse(Options options, String[] arguments) {
+		return tryParse(options.compile(), arguments, null, false);
+	}
+	
+	/**
+	 * Parses the arguments without throwing: every problem is recorded as a {@link ParseError} and the parsing 
+	 * goes on with the next argument.
+	 * 
+	 * @param plan the compiled options
+	 * @param arguments the command line arguments
+	 * @param props the default values of the options, may be null
+	 * @param stopAtNonOption if <tt>true</tt>, an unrecognized argument stops the parsing
+	 * @return the command line built from the valid arguments and the errors
+	 */
+	public ParseResult tryParse(ParsePlan plan, String[] arguments, Properties props, boolean stopAtNonOption) {
+		CommandLineListener listener = new CommandLineListener(plan, true, writableStackTrace);
+		
+		try {
+			parse(plan, arguments, props, stopAtNonOption, listener);
+			
+			return new ParseResult(listener.getCommandLine(), listener.getErrors(), writableStackTrace);
+		} catch (ParseException e) {    //cannot happen, the listener collects the errors
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * Starts a parse receiving the arguments one at a time.
+	 * 
+	 * @param options the specified options
+	 * @return the parser to feed with the arguments
+	 */
+	public IncrementalParser startParse(Options options) {
+		return startParse(options.compile(), null, false);
+	}
+	
+	/**
+	 * Starts a parse receiving the arguments one at a time and building a {@link CommandLine}.
+	 * 
+	 * @param plan the compiled options
+	 * @param props the default values of the options, may be null
+	 * @param stopAtNonOption if <tt>true</tt>, an unrecognized argument stops the parsing
+	 * @return the parser to feed with the arguments
+	 */
+	public IncrementalParser startParse(ParsePlan plan, Properties props, boolean stopAtNonOption) {
+		CommandLineListener listener = new CommandLineListener(plan, false, writableStackTrace);
+		
+		return new IncrementalParser(this, new ParseContext(plan, stopAtNonOption, listener), props, listener);
+	}
+	
+	/**
+	 * Starts a parse receiving the arguments one at a time and reporting what it finds to <code>listener</code>.
+	 * 
+	 * @param plan the compiled options
+	 * @param props the default values of the options, may be null
+	 * @param stopAtNonOption if <tt>true</tt>, an unrecognized argument stops the parsing
+	 * @param listener receives the events of the parse
+	 * @return the parser to feed with the arguments
+	 */
+	public IncrementalParser startParse(ParsePlan plan, Properties props, boolean stopAtNonOption, ParseListener listener) {
+		return new IncrementalParser(this, new ParseContext(plan, stopAtNonOption, listener), props, null);
+	}
+	
+	/**
+	 * Parses a whole command line, split into arguments by a {@link ShellTokenizer}.
+	 * 
+	 * @param options the specified options
+	 * @param commandLine the command line, without the name of the program
+	 * @return the parsed command line
+	 * @throws ParseException if a quote is not closed or the arguments cannot be parsed
+	 */
+	public CommandLine parse(Options options, CharSequence commandLine) throws ParseException {
+		return parse(options.compile(), commandLine, null, false);
+	}
+	
+	/**
+	 * Parses a whole command line, split into arguments by a {@link ShellTokenizer}. The arguments are handed to the 
+	 * parser as ranges of the command line, they are not copied into an array.
+	 * 
+	 * @param plan the compiled options
+	 * @param commandLine the command line, without the name of the program
+	 * @param props the default values of the options, may be null
+	 * @param stopAtNonOption if <tt>true</tt>, an unrecognized argument stops the parsing
+	 * @return the parsed command line
+	 * @throws ParseException if a quote is not closed or the arguments cannot be parsed
+	 */
+	public CommandLine parse(ParsePlan plan, CharSequence commandLine, Properties props, boolean stopAtNonOption) throws ParseException {
+		return parse(plan, new ShellTokenizer().tokenize(commandLine), props, stopAtNonOption);
+	}
+	
+	CommandLine parse(ParsePlan plan, ShellTokenizer arguments, Properties props, boolean stopAtNonOption) throws ParseException {
+		CommandLineListener listener = new CommandLineListener(plan, false, writableStackTrace);
+		ParseContext ctx = new ParseContext(plan, stopAtNonOption, listener);
+		
+		for (int i = 0; i < arguments.size(); i++)
+			handleArgument(ctx, arguments.text(i), arguments.start(i), arguments.end(i), null);
+		finish(ctx, props);
+		
+		return listener.getCommandLine();
+	}
+	
+	void finish(ParseContext ctx, Properties props) throws ParseException {
+		finish(ctx, props, null);
+	}
+	
+	void finish(ParseContext ctx, Properties props, DefaultSources sources) throws ParseException {
+		//check the arguments of the last option, which takes no value afterwards
+		checkRequiredArgs(ctx);
+		ctx.currentOption = null;
 		
 		//add the default options
-		handleProperties(props);
+		handleProperties(ctx, props);
+		handleDefaults(ctx, sources);
 		
-		checkRequiredOptions();
+		checkRequiredOptions(ctx);
+	}
+	
+	/**
+	 * Parses many command lines against the same options, the work is split over the common fork-join pool.
+	 * 
+	 * @param options the specified options
+	 * @param argumentsList the command lines to parse
+	 * @return the outcome of each command line, in the order of <code>argumentsList</code>
+	 */
+	public BatchParseResult parseAll(Options options, List<String[]> argumentsList) {
+		return parseAll(options, argumentsList, null, false, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Parses many command lines against the same options, the work is split over <code>pool</code>.
+	 * 
+	 * @param options the specified options
+	 * @param argumentsList the command lines to parse
+	 * @param props the default values of the options, may be null
+	 * @param stopAtNonOption if <tt>true</tt>, an unrecognized argument stops the parsing
+	 * @param pool the pool running the parses
+	 * @return the outcome of each command line, in the order of <code>argumentsList</code>
+	 */
+	public BatchParseResult parseAll(Options options, List<String[]> argumentsList, Properties props, boolean stopAtNonOption, ForkJoinPool pool) {
+		int size = argumentsList.size();
+		String[][] arguments = argumentsList.toArray(new String[size][]);
+		CommandLine[] commandLines = new CommandLine[size];
+		ParseException[] exceptions = new ParseException[size];
 		
-		return cmd;
+		//a few tasks per worker keep the threads busy when some command lines are slower than others
+		int threshold = Math.max(1, size / (pool.getParallelism() * 8));
+		pool.invoke(new ParseTask(options.compile(), arguments, props, stopAtNonOption, commandLines, exceptions, 0, size, threshold));
+		
+		return new BatchParseResult(commandLines, exceptions);
+	}
+	
+	/**
+	 * Parses a file holding one command line per line, each line is split into arguments by a {@link ShellTokenizer}.
+	 * 
+	 * @param options the specified options
+	 * @param path the file to read
+	 * @return the outcome of each line, the stream must be closed to release the file
+	 * @throws IOException if the file cannot be opened
+	 * @see #parseLines(Options, Path, Properties, boolean)
+	 */
+	public Stream<ParsedLine> parseLines(Options options, Path path) throws IOException {
+		return parseLines(options, path, null, false);
 	}
 	
 	/**
+	 * Parses a file holding one command line per line, each line is split into arguments by a {@link ShellTokenizer}.
+	 * <p>
+	 * The file is memory-mapped and each line is decoded and parsed only when the stream reaches it, so the memory 
+	 * used does not grow with the size of the file. The stream splits the file at line boundaries and can be 
+	 * processed with {@link Stream#parallel()}.
 	 * 
+	 * @param options the specified options
+	 * @param path the file to read
+	 * @param props the default values of the options, may be null
+	 * @param stopAtNonOption if <tt>true</tt>, an unrecognized argument stops the parsing
+	 * @return the outcome of each line, the stream must be closed to release the file
+	 * @throws IOException if the file cannot be opened
+	 */
+	public Stream<ParsedLine> parseLines(Options options, Path path, Properties props, boolean stopAtNonOption) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			LineSpliterator lines = new LineSpliterator(this, options.compile(), props, stopAtNonOption, channel, 0, channel.size());
+			
+			return StreamSupport.stream(lines, false).onClose(() -> {
+				try {
+					channel.close();
+				} catch (IOException e) {
+					//nothing left to release
+				}
+			});
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 *
 	 * @param props
 	 */
-	private void handleProperties(Properties props) throws ParseException {
+	private void handleProperties(ParseContext ctx, Properties props) throws ParseException {
 		if (props == null)
 			return;
 		for (Enumeration<?> e = props.propertyNames(); e.hasMoreElements(); ) {
 			String option = e.nextElement().toString();
 			
-			Option opt = options.getOption(option);
-			if (opt == null)
-				throw new UnrecognizedOptionException("Default option wasn't defined", option);
-			
-			OptionGroup group = options.getOptionGroup(opt);
-			boolean selected = group != null && group.getSelected() != null;
-			
-			if (!cmd.hasOption(option) && !selected) {
-				String value = props.getProperty(option);
-				
-				if (opt.hasArg()) {
-					if (opt.getValue() == null || opt.getValues().length == 0) {
-						opt.addValueForProcessing(value);
-					}
-				} else if (!("yes".equalsIgnoreCase(value) 
-						|| "true".equalsIgnoreCase(value) 
-						|| "1".equalsIgnoreCase(value)))
-					continue;
-				
-				handleOption(opt);
-				currentOption = null;
+			Option opt = ctx.plan.getOption(option);
+			if (opt == null) {
+				ctx.error(ParseError.undefinedDefault(option));
+				continue;
 			}
+			
+			handleDefault(ctx, opt, props.getProperty(option), ValueSource.PROPERTIES);
 		}
 	}
 	
-	private void checkRequiredOptions() throws MissingOptionException {
-		if (!expectedOpts.isEmpty())
-			throw new MissingOptionException(expectedOpts);
+	/**
+	 * Gives the options absent from the command line the values of the default sources. The keys of the sources 
+	 * are matched to the options once per plan, only the options having a default are visited.
+	 * 
+	 * @param sources
+	 */
+	private void handleDefaults(ParseContext ctx, DefaultSources sources) throws ParseException {
+		if (sources == null)
+			return;
+		
+		DefaultSources.Merge merge = sources.merge(ctx.plan);
+		for (String key : merge.getUndefined())
+			ctx.error(ParseError.undefinedDefault(key));
+		
+		for (int i = 0; i < merge.size(); i++)
+			handleDefault(ctx, ctx.plan.optionAt(merge.idAt(i)), merge.valueAt(i), merge.sourceAt(i));
+	}
+	
+	/**
+	 * Gives <code>opt</code> a default value unless it was found or another option of its group was selected. A flag
+	 * is only set by the values <code>yes</code>, <code>true</code> and <code>1</code>.
+	 */
+	private void handleDefault(ParseContext ctx, Option opt, String value, ValueSource source) throws ParseException {
+		OptionGroup group = ctx.plan.getOptionGroup(opt);
+		boolean selected = group != null && ctx.getSelected(group) != null;
+		if (ctx.isFound(opt) || selected)
+			return;
+		
+		if (!opt.hasArg() && !("yes".equalsIgnoreCase(value)
+				|| "true".equalsIgnoreCase(value)
+				|| "1".equalsIgnoreCase(value)))
+			return;
+		
+		checkRequiredArgs(ctx);
+		ctx.startOption(opt, updateRequiredOptions(ctx, opt), source);
+		if (opt.hasArg())
+			ctx.addValue(value);
+		ctx.currentOption = null;
+	}
+	
+	private void checkRequiredOptions(ParseContext ctx) throws ParseException {
+		if (!ctx.expectedOpts.isEmpty())
+			ctx.missingOptions();
 	}
 	
-	private void checkRequiredArgs() throws ParseException {
-		if (currentOption != null && currentOption.requiresArg())
-			throw new MissingArgumentException(currentOption);
+	private void checkRequiredArgs(ParseContext ctx) throws ParseException {
+		if (ctx.currentOption != null && ctx.requiresArg())
+			ctx.error(ParseError.missingArgument(ctx.index, ctx.currentOption));
 	}
 	
-	private void handleToken(String token) throws ParseException {
-		currentToken = token;
+	void handleToken(ParseContext ctx, String token) throws ParseException {
+		if (isResponseFile(ctx, token, 0, token.length()))
+			handleResponseFile(ctx, token, new HashSet<Path>());
+		else
+			handleToken(ctx, ctx.token.lex(token));
+	}
+	
+	/**
+	 * Handles the argument held by <code>text</code> between <code>start</code> and <code>end</code>.
+	 * 
+	 * @param including the response files being expanded, <code>null</code> if there is none
+	 */
+	private void handleArgument(ParseContext ctx, CharSequence text, int start, int end, Set<Path> including) throws ParseException {
+		if (isResponseFile(ctx, text, start, end))
+			handleResponseFile(ctx, text.subSequence(start, end).toString(), including != null ? including : new HashSet<Path>());
+		else
+			handleToken(ctx, ctx.token.lex(text, start, end));
+	}
+	
+	private boolean isResponseFile(ParseContext ctx, CharSequence text, int start, int end) {
+		return expandResponseFiles && !ctx.skipParsing && end - start > 1 && text.charAt(start) == '@';
+	}
+	
+	/**
+	 * Handles the arguments of the response file named by <code>argument</code>, <code>@file</code>.
+	 * 
+	 * @param including the real paths of the response files being expanded, to detect a file including itself
+	 */
+	private void handleResponseFile(ParseContext ctx, String argument, Set<Path> including) throws ParseException {
+		ResponseFile file;
+		try {
+			file = ResponseFile.read(argument.substring(1));
+		} catch (NoSuchFileException e) {
+			ctx.error(ParseError.invalidResponseFile(ctx.index + 1, argument, "file not found"));
+			return;
+		} catch (IOException | InvalidPathException e) {
+			ctx.error(ParseError.invalidResponseFile(ctx.index + 1, argument, e.getMessage()));
+			return;
+		}
+		
+		if (file.getError() != null) {
+			ctx.error(ParseError.invalidResponseFile(ctx.index + 1, argument, file.getError()));
+			return;
+		}
+		if (!including.add(file.getPath())) {
+			ctx.error(ParseError.invalidResponseFile(ctx.index + 1, argument, "the file includes itself"));
+			return;
+		}
+		
+		ShellTokenizer arguments = file.getArguments();
+		for (int i = 0; i < arguments.size(); i++)
+			handleArgument(ctx, arguments.text(i), arguments.start(i), arguments.end(i), including);
+		including.remove(file.getPath());
+	}
+	
+	private void handleToken(ParseContext ctx, Token token) throws ParseException {
+		ctx.index++;
 		
-		if (skipParsing) {
-			cmd.addArg(token);
-		} else if ("--".equals(token)) {
-			skipParsing = true;
-		} else if (currentOption != null && currentOption.acceptsArg()) {
-			currentOption.addValueForProcessing(Util.stripLeadingAndTrailingQuotes(token));
-		} else if (token.startsWith("--")) {
-			handleLongOption(token);
-		} else if (token.startsWith("-") && !"-".equals(token)) {
-			handleShortAndLongOption(token);
+		if (ctx.skipParsing) {
+			ctx.listener.onPositional(token.toString());
+		} else if (token.kind == Token.END_OF_OPTIONS) {
+			ctx.skipParsing = true;
+			ctx.listener.onEndOfOptions();
+		} else if (ctx.currentOption != null && ctx.acceptsArg()) {
+			ctx.addValue(token.value());
+		} else if (token.kind == Token.LONG) {
+			handleLongOption(ctx, token);
+		} else if (token.kind == Token.SHORT) {
+			handleShortAndLongOption(ctx, token);
 		} else {
-			handleUnknownToken(token);
+			handleUnknownToken(ctx, token.toString());
 		}
 		
-		if (currentOption != null && !currentOption.acceptsArg())
-			currentOption = null;
+		if (ctx.currentOption != null && !ctx.acceptsArg())
+			ctx.currentOption = null;
 	}
 	
-	private boolean isArgument(String token) {
-		return !isOption(token) || isNegativeNumber(token);
+	private boolean isArgument(ParseContext ctx, Token token) {
+		return !isOption(ctx, token) || isNegativeNumber(token.toString());
 	}
 	
 	private boolean isNegativeNumber(String token) {
@@ -155,46 +561,45 @@ public class DefaultParser implements CommandLineParser {
 		}
 	}
 	
-	private boolean isOption(String token) {
-		return isLongOption(token) || isShortOption(token);
+	private boolean isOption(ParseContext ctx, Token token) {
+		return isLongOption(ctx, token) || isShortOption(ctx, token);
 	}
 	
-	private boolean isShortOption(String token) {
-		if (!token.startsWith("-") || token.length() == 1)
+	private boolean isShortOption(ParseContext ctx, Token token) {
+		if (token.kind != Token.SHORT)
 			return false;
 		
-		//removing leading "-" and "=value"
-		int pos = token.indexOf("=");
-		String optName = pos == -1 ? token.substring(1) : token.substring(1, pos);
-		if (options.hasShortOption(optName))
+		//ignoring leading "-" and "=value"
+		if (ctx.plan.getShortOption(token.text(), token.nameStart, token.nameEnd) != null)
 			return true;
 		//check for several concatenated short options
-		return optName.length() > 0 && options.hasShortOption(String.valueOf(optName.charAt(0)));
+		return token.nameLength() > 0 && ctx.plan.getShortOption(token.text(), token.nameStart, token.nameStart + 1) != null;
 	}
 	
-	private boolean isLongOption(String token) {
-		if (!token.startsWith("-") || token.length() == 1)
+	private boolean isLongOption(ParseContext ctx, Token token) {
+		if (token.kind != Token.SHORT && token.kind != Token.LONG)
 			return false;
-		int pos = token.indexOf("=");
-		String t = pos == -1 ? token : token.substring(0, pos);
 		
-		if (!options.getMatchingOptions(t).isEmpty()) {
+		ctx.plan.matchLongOption(token.text(), token.nameStart, token.nameEnd, token.end - token.nameStart - 2, ctx.match);
+		if (!ctx.match.isEmpty()) {
 			//long or partial long options
 			return true;
-		} else if (getLongPrefix(token) != null && !token.startsWith("--")) {
+		} else if (token.kind == Token.SHORT && getLongPrefix(ctx) != null) {
 			return true;
 		}
 		
 		return false;
 	}
 	
-	private void handleUnknownToken(String token) throws ParseException {
-		if (token.startsWith("-") && token.length() > 1 && !stopAtNonOption)
-			throw new UnrecognizedOptionException("Unrecognized option: " + token, token);
+	private void handleUnknownToken(ParseContext ctx, String token) throws ParseException {
+		if (token.startsWith("-") && token.length() > 1 && !ctx.stopAtNonOption) {
+			ctx.error(ParseError.unrecognized(ctx.index, token));
+			return;
+		}
 		
-		cmd.addArg(token);
-		if (stopAtNonOption)
-			skipParsing = true;
+		ctx.listener.onPositional(token);
+		if (ctx.stopAtNonOption)
+			ctx.skipParsing = true;
 	}
 	
 	/**
@@ -208,11 +613,11 @@ public class DefaultParser implements CommandLineParser {
 	 * @param token
 	 * @throws ParseException
 	 */
-	private void handleLongOption(String token) throws ParseException {
-		if (token.indexOf('=') == -1)
-			handleLongOptionWithoutEqual(token);
+	private void handleLongOption(ParseContext ctx, Token token) throws ParseException {
+		if (token.equals == -1)
+			handleLongOptionWithoutEqual(ctx, token);
 		else
-			handleLongOptionWithEqual(token);
+			handleLongOptionWithEqual(ctx, token);
 	}
 	
 	/**
@@ -226,14 +631,25 @@ public class DefaultParser implements CommandLineParser {
 	 * @param token
 	 * @throws ParseException
 	 */
-	private void handleLongOptionWithoutEqual(String token) throws ParseException {
-		List<String> matchingOpts = options.getMatchingOptions(token);
-		if (matchingOpts.isEmpty()) {
-			handleUnknownToken(currentToken);
-		} else if (matchingOpts.size() > 1) {
-			throw new AmbiguousOptionException(token, matchingOpts);
+	private void handleLongOptionWithoutEqual(ParseContext ctx, Token token) throws ParseException {
+		ctx.plan.matchLongOption(token.text(), token.nameStart, token.nameEnd, -1, ctx.match);
+		handleLongMatch(ctx, token);
+	}
+	
+	/**
+	 * Handles the outcome of the long option lookup made for <code>token</code>
+	 * 
+	 * @param token
+	 * @throws ParseException
+	 */
+	private void handleLongMatch(ParseContext ctx, Token token) throws ParseException {
+		LongOptionTrie.Match match = ctx.match;
+		if (match.isEmpty()) {
+			handleUnknownToken(ctx, token.toString());
+		} else if (match.isAmbiguous()) {
+			ctx.error(ParseError.ambiguous(ctx.index, token.toString(), match.getCandidates()));
 		} else {
-			handleOption(options.getOption(matchingOpts.get(0)));
+			handleOption(ctx, match.getOption());
 		}
 	}
 	
@@ -248,168 +664,211 @@ public class DefaultParser implements CommandLineParser {
 	 * @param token
 	 * @throws ParseException
 	 */
-	private void handleLongOptionWithEqual(String token) throws ParseException {
-		int pos = token.indexOf('=');
-		
-		String value = token.substring(pos + 1);
-		String opt = token.substring(0, pos);
-		
-		List<String> matchingOpts = options.getMatchingOptions(opt);
-		if (matchingOpts.isEmpty()) {
-			handleUnknownToken(currentToken);
-		} else if (matchingOpts.size() > 1) {
-			throw new AmbiguousOptionException(opt, matchingOpts);
+	private void handleLongOptionWithEqual(ParseContext ctx, Token token) throws ParseException {
+		LongOptionTrie.Match match = ctx.match;
+		ctx.plan.matchLongOption(token.text(), token.nameStart, token.nameEnd, -1, match);
+		if (match.isEmpty()) {
+			handleUnknownToken(ctx, token.toString());
+		} else if (match.isAmbiguous()) {
+			ctx.error(ParseError.ambiguous(ctx.index, token.substring(token.start, token.equals), match.getCandidates()));
 		} else {
-			Option option = options.getOption(matchingOpts.get(0));
+			Option option = match.getOption();
 			
 			if (option.acceptsArg()) {
-				handleOption(option);
-				currentOption.addValueForProcessing(value);
-				currentOption = null;
+				handleOption(ctx, option);
+				ctx.addValue(token.valueAfterEquals());
+				ctx.currentOption = null;
 			} else {
-				handleUnknownToken(currentToken);
+				handleUnknownToken(ctx, token.toString());
 			}
 		}
 	}
 	
-	private void handleShortAndLongOption(String token) throws ParseException {
-		String t = Util.stripLeadingHyphens(token);
-		int pos = t.indexOf('=');
+	private void handleShortAndLongOption(ParseContext ctx, Token token) throws ParseException {
+		CharSequence t = token.text();
+		int start = token.nameStart;
 		
-		if (t.length() == 1) {    //-S
-			if (options.hasShortOption(t)) {
-				handleOption(options.getOption(t));
+		if (token.end - start == 1) {    //-S
+			Option option = ctx.plan.getShortOption(t, start, token.end);
+			if (option != null) {
+				handleOption(ctx, option);
 			} else {
-				handleUnknownToken(token);
+				handleUnknownToken(ctx, token.toString());
 			}
-		} else if (pos == -1) {    //no equal sign found
-			if (options.hasShortOption(t)) {
-				handleOption(options.getOption(t));
-			} else if (!options.getMatchingOptions(t).isEmpty()) {
-				handleLongOptionWithoutEqual(token);
+		} else if (token.equals == -1) {    //no equal sign found
+			Option option = ctx.plan.getShortOption(t, start, token.end);
+			if (option != null) {
+				handleOption(ctx, option);
+			} else if (!matchLongOrPrefix(ctx, token).isEmpty()) {
+				handleLongMatch(ctx, token);
 			} else {    //look for a long prefix
-				String opt = getLongPrefix(t);
+				Option prefix = getLongPrefix(ctx);
 				
-				if (opt != null && options.getOption(opt).acceptsArg()) {
-					handleOption(options.getOption(opt));
-					currentOption.addValueForProcessing(t.substring(opt.length()));
-					currentOption = null;
-				} else if (isJavaProperty(t)) {    //-SV1 (-Dflag)
-					handleOption(options.getOption(t.substring(0, 1)));
-					currentOption.addValueForProcessing(t.substring(1));
-					currentOption = null;
+				if (prefix != null && prefix.acceptsArg()) {
+					handleOption(ctx, prefix);
+					ctx.addValue(token.substring(start + prefix.getLongOpt().length(), token.end));
+					ctx.currentOption = null;
+				} else if (isJavaProperty(ctx, token)) {    //-SV1 (-Dflag)
+					handleOption(ctx, ctx.plan.getOption(t, start, start + 1));
+					ctx.addValue(token.substring(start + 1, token.end));
+					ctx.currentOption = null;
 				} else {    //-S1S2S3 -S1S2V
-					handleConcatenatedOptions(token);
+					handleConcatenatedOptions(ctx, token);
 				}
 			}
 		} else {    //equal sign found (-xxx=yyy)
-			String opt = t.substring(0, pos);
-			String value = t.substring(pos + 1);
-			
-			if (opt.length() == 1) {    //-S=V
-				Option option = options.getOption(opt);
+			if (token.nameLength() == 1) {    //-S=V
+				Option option = ctx.plan.getOption(t, start, token.nameEnd);
 				if (option != null && option.acceptsArg()) {
-					handleOption(option);
-					currentOption.addValueForProcessing(value);
-					currentOption = null;
+					handleOption(ctx, option);
+					ctx.addValue(token.valueAfterEquals());
+					ctx.currentOption = null;
 				} else {
-					handleUnknownToken(token);
+					handleUnknownToken(ctx, token.toString());
 				}
-			} else if (isJavaProperty(opt)) {    //-SV1=V2 (-Dkey=value)
-				handleOption(options.getOption(opt.substring(0, 1)));
-				currentOption.addValueForProcessing(opt.substring(1));
-				currentOption.addValueForProcessing(value);
+			} else if (isJavaProperty(ctx, token)) {    //-SV1=V2 (-Dkey=value)
+				handleOption(ctx, ctx.plan.getOption(t, start, start + 1));
+				ctx.addValue(token.substring(start + 1, token.equals));
+				ctx.addValue(token.valueAfterEquals());
 			} else {
 				// -L=V or -l=V
-				handleLongOptionWithEqual(token);
+				handleLongOptionWithEqual(ctx, token);
 			}
 		}
 	}
 	
 	/**
-	 * Search for a prefix that is the long name of an option (-Xmx512m)
+	 * Looks up the name of a single hyphen token as a long option, the same walk records the longest long option 
+	 * that is a prefix of the name for {@link #getLongPrefix(ParseContext)}.
 	 * 
 	 * @param token
-	 * @return
+	 * @return the outcome of the lookup
 	 */
-	private String getLongPrefix(String token) {
-		String t = Util.stripLeadingHyphens(token);
+	private LongOptionTrie.Match matchLongOrPrefix(ParseContext ctx, Token token) {
+		//the prefix must leave at least two characters for the value
+		ctx.plan.matchLongOption(token.text(), token.nameStart, token.nameEnd, token.nameLength() - 2, ctx.match);
 		
-		int i;
-		String opt = null;
-		for (i = t.length() - 2; i > 1; i--) {
-			String prefix = t.substring(0, i);
-			if (options.hasLongOption(prefix)) {
-				opt = prefix;
-				break;
-			}
-		}
+		return ctx.match;
+	}
+	
+	/**
+	 * Returns the option whose long name is a prefix of the last looked up token (-Xmx512m)
+	 *
+	 * @return the option or <code>null</code> if there is none
+	 */
+	private Option getLongPrefix(ParseContext ctx) {
+		Option prefix = ctx.match.getPrefix();
 		
-		return opt;
+		//a prefix of one character is a short option
+		return prefix != null && prefix.getLongOpt().length() > 1 ? prefix : null;
 	}
 	
 	/**
-	 * Check if the specified token is a Java-like property (-Dkey=value)
+	 * Check if the name of the specified token starts with a Java-like property (-Dkey=value)
 	 * 
 	 * @param token
 	 * @return
 	 */
-	private boolean isJavaProperty(String token) {
-		String opt = token.substring(0, 1);
-		Option option = options.getOption(opt);
+	private boolean isJavaProperty(ParseContext ctx, Token token) {
+		Option option = ctx.plan.getOption(token.text(), token.nameStart, token.nameStart + 1);
 		
 		return option != null && (option.getNumberOfArgs() >= 2 || option.getNumberOfArgs() == Option.UNLIMITED_VALUES);
 	}
 	
-	private void handleOption(Option option) throws ParseException {
+	private void handleOption(ParseContext ctx, Option option) throws ParseException {
 		//check the previous option before handling the next option
-		checkRequiredArgs();
-		
-		option = (Option) option.clone();
-		
-		updateRequiredOptions(option);
-		
-		cmd.addOption(option);
+		checkRequiredArgs(ctx);
 		
-		if (option.hasArg())
-			currentOption = option;
-		else
-			currentOption = null;
+		//an option conflicting with its group is left out, it still takes its values
+		ctx.startOption(option, updateRequiredOptions(ctx, option));
 	}
 	
 	/**
 	 * Removes the option or its group from the list of expected elements.
-	 * 
+	 *
 	 * @param option
-	 * @throws AlreadySelectedException
+	 * @return <tt>false</tt> if another option of the group has been selected and the errors are collected
+	 * @throws ParseException if another option of the group has been selected
 	 */
-	private void updateRequiredOptions(Option option) throws AlreadySelectedException {
+	private boolean updateRequiredOptions(ParseContext ctx, Option option) throws ParseException {
 		if (option.isRequired())
-			expectedOpts.remove(option.getKey());
+			ctx.expectedOpts.remove(option.getKey());
 		
-		if (options.getOptionGroup(option) != null) {
-			OptionGroup group = options.getOptionGroup(option);
-			
+		OptionGroup group = ctx.plan.getOptionGroup(option);
+		if (group != null) {
 			if (group.isRequired())
-				expectedOpts.remove(group);
-			group.setSelected(option);
+				ctx.expectedOpts.remove(group);
+			return ctx.select(group, option);
 		}
+		
+		return true;
 	}
 	
-	protected void handleConcatenatedOptions(String token) throws ParseException {
-		for (int i = 1; i < token.length(); i++) {
-			String ch = String.valueOf(token.charAt(i));
+	private void handleConcatenatedOptions(ParseContext ctx, Token token) throws ParseException {
+		for (int i = token.nameStart; i < token.end; i++) {
+			Option option = ctx.plan.getOption(token.text(), i, i + 1);
 			
-			if (options.hasOption(ch)) {
-				handleOption(options.getOption(ch));
+			if (option != null) {
+				handleOption(ctx, option);
 				
-				if (currentOption != null && token.length() != i + 1) {
+				if (ctx.currentOption != null && token.end != i + 1) {
 					// add the trail as an argument of the option
-					currentOption.addValueForProcessing(token.substring(i + 1));
+					ctx.addValue(token.substring(i + 1, token.end));
 					break;
 				}
 			} else {
-				handleUnknownToken(stopAtNonOption && i > 1 ? token.substring(i) : token);
+				handleUnknownToken(ctx, ctx.stopAtNonOption && i > token.nameStart ? token.substring(i, token.end) : token.toString());
+				break;
+			}
+		}
+	}
+	
+	/**
+	 * Parses a range of the command lines of {@link DefaultParser#parseAll}, splitting it while it is larger 
+	 * than the threshold.
+	 */
+	private final class ParseTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = -2719412052869712376L;
+		
+		private final ParsePlan plan;
+		private final String[][] arguments;
+		private final Properties props;
+		private final boolean stopAtNonOption;
+		private final CommandLine[] commandLines;
+		private final ParseException[] exceptions;
+		private final int from;
+		private final int to;
+		private final int threshold;
+		
+		ParseTask(ParsePlan plan, String[][] arguments, Properties props, boolean stopAtNonOption, 
+				CommandLine[] commandLines, ParseException[] exceptions, int from, int to, int threshold) {
+			this.plan = plan;
+			this.arguments = arguments;
+			this.props = props;
+			this.stopAtNonOption = stopAtNonOption;
+			this.commandLines = commandLines;
+			this.exceptions = exceptions;
+			this.from = from;
+			this.to = to;
+			this.threshold = threshold;
+		}
+		
+		@Override
+		protected void compute() {
+			if (to - from > threshold) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new ParseTask(plan, arguments, props, stopAtNonOption, commandLines, exceptions, from, middle, threshold),
+						new ParseTask(plan, arguments, props, stopAtNonOption, commandLines, exceptions, middle, to, threshold));
+				return;
+			}
+			
+			for (int i = from; i < to; i++) {
+				try {
+					commandLines[i] = parse(plan, arguments[i], props, stopAtNonOption);
+				} catch (ParseException e) {
+					exceptions[i] = e;
+				}
 			}
 		}
 	}
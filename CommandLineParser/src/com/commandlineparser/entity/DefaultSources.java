@@ -0,0 +1,275 @@
+package com.commandlineparser.entity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * The default values of the options, read from layered sources: the environment variables, then the properties
+ * files, then the built-in defaults of the application. The command line comes first of all: a layer is only
+ * consulted for the options absent from the command line and from the layers above it, and each default given to a
+ * {@link CommandLine} records its layer, see {@link CommandLine#getSource(String)}.
+ * <p>
+ * The sources are copied when they are built and never change afterwards. Their keys are matched to the options of a
+ * {@link ParsePlan} once, the first time the sources are used with the plan, and the parser then walks the options
+ * having a default without looking any key up.
+ *
+ * <pre>
+ * DefaultSources defaults = DefaultSources.builder()
+ *         .environment("MYAPP_")
+ *         .properties(Paths.get("myapp.properties"))
+ *         .defaults(builtIn)
+ *         .build();
+ * CommandLine cmd = new DefaultParser().parse(plan, args, defaults, false);
+ * </pre>
+ */
+public final class DefaultSources {
+
+	/** the layers from the highest priority to the lowest */
+	private final Layer[] layers;
+	
+	/** the sources matched to the last plan they were used with */
+	private volatile Merge merge;
+	
+	private DefaultSources(List<Layer> layers) {
+		this.layers = layers.toArray(new Layer[layers.size()]);
+		//a stable sort: the layers of a same source keep the order they were added in
+		Arrays.sort(this.layers, (a, b) -> a.source.compareTo(b.source));
+	}
+	
+	public static Builder builder() {
+		return new Builder();
+	}
+	
+	/**
+	 * Returns the defaults of the options of <code>plan</code>, matching the keys of the sources to the options if
+	 * the sources were last used with another plan.
+	 */
+	Merge merge(ParsePlan plan) {
+		Merge result = merge;
+		if (result == null || result.plan != plan) {
+			result = new Merge(plan, layers);
+			merge = result;
+		}
+		
+		return result;
+	}
+	
+	@Override
+	public String toString() {
+		return "[ DefaultSources: " + Arrays.toString(layers) + " ]";
+	}
+	
+	/**
+	 * Builds {@link DefaultSources}. The layers can be added in any order, the layers of the same source are
+	 * consulted in the order they were added.
+	 */
+	public static final class Builder {
+		private final List<Layer> layers = new ArrayList<>();
+		
+		private Builder() {
+		}
+		
+		/**
+		 * Adds the environment variables of the process, see {@link #environment(Map, String)}.
+		 */
+		public Builder environment(String prefix) {
+			return environment(System.getenv(), prefix);
+		}
+		
+		/**
+		 * Adds a layer of environment variables. The variable of an option is named after its long name, or its key
+		 * if it has none, in upper case, with the characters other than letters and digits replaced by
+		 * <code>_</code>, and prefixed with <code>prefix</code>: <code>MYAPP_LOG_LEVEL</code> for the option
+		 * <code>--log-level</code>. The variables naming no option are ignored.
+		 *
+		 * @param environment the variables
+		 * @param prefix the prefix of the variables, may be empty
+		 */
+		public Builder environment(Map<String, String> environment, String prefix) {
+			if (prefix == null)
+				throw new IllegalArgumentException("The prefix must not be null, use an empty prefix instead");
+			
+			layers.add(new Layer(ValueSource.ENVIRONMENT, new LinkedHashMap<>(environment), prefix));
+			return this;
+		}
+		
+		/**
+		 * Adds a layer of properties, keyed by the key or the long name of the options as the properties given to
+		 * {@link DefaultParser#parse(Options, String[], Properties)}. A key naming no option is reported as an
+		 * error by the parser.
+		 */
+		public Builder properties(Properties props) {
+			Map<String, String> values = new LinkedHashMap<>();
+			for (String name : props.stringPropertyNames())
+				values.put(name, props.getProperty(name));
+			
+			layers.add(new Layer(ValueSource.PROPERTIES, values, null));
+			return this;
+		}
+		
+		/**
+		 * Adds a layer read from a properties file.
+		 *
+		 * @throws IOException if the file cannot be read
+		 * @see #properties(Properties)
+		 */
+		public Builder properties(Path file) throws IOException {
+			Properties props = new Properties();
+			try (InputStream in = Files.newInputStream(file)) {
+				props.load(in);
+			}
+			
+			return properties(props);
+		}
+		
+		/**
+		 * Adds a layer of built-in defaults, keyed by the key or the long name of the options. A key naming no option
+		 * is reported as an error by the parser.
+		 */
+		public Builder defaults(Map<String, String> defaults) {
+			layers.add(new Layer(ValueSource.DEFAULTS, new LinkedHashMap<>(defaults), null));
+			return this;
+		}
+		
+		public DefaultSources build() {
+			return new DefaultSources(layers);
+		}
+	}
+	
+	/**
+	 * The values of one source.
+	 */
+	private static final class Layer {
+		
+		final ValueSource source;
+		final Map<String, String> values;
+		
+		/** the prefix of the environment variables, <code>null</code> if the values are keyed by option names */
+		final String prefix;
+		
+		Layer(ValueSource source, Map<String, String> values, String prefix) {
+			this.source = source;
+			this.values = values;
+			this.prefix = prefix;
+		}
+		
+		/**
+		 * @return the name of the environment variable holding the value of <code>option</code>
+		 */
+		String variableOf(Option option) {
+			String name = option.hasLongOpt() ? option.getLongOpt() : option.getKey();
+			StringBuilder sb = new StringBuilder(prefix.length() + name.length()).append(prefix);
+			for (int i = 0; i < name.length(); i++) {
+				char ch = name.charAt(i);
+				sb.append(Character.isLetterOrDigit(ch) ? Character.toUpperCase(ch) : '_');
+			}
+			
+			return sb.toString();
+		}
+		
+		@Override
+		public String toString() {
+			return source + "(" + values.size() + ")";
+		}
+	}
+	
+	/**
+	 * The sources matched to the options of a plan: the options having a default, in the order of the plan, with the
+	 * value of the highest layer holding one.
+	 */
+	static final class Merge {
+		
+		final ParsePlan plan;
+		
+		/** the id of each option having a default, in ascending order */
+		private final int[] ids;
+		private final String[] values;
+		private final ValueSource[] sources;
+		
+		/** the keys naming no option */
+		private final List<String> undefined;
+		
+		Merge(ParsePlan plan, Layer[] layers) {
+			this.plan = plan;
+			
+			int count = plan.optionCount();
+			String[] valueById = new String[count];
+			ValueSource[] sourceById = new ValueSource[count];
+			List<String> unknown = new ArrayList<>();
+			
+			for (Layer layer : layers) {
+				if (layer.prefix != null) {
+					//the environment is too large to be walked, the variable of each option is looked up instead
+					for (int id = 0; id < count; id++) {
+						String value = valueById[id] == null ? layer.values.get(layer.variableOf(plan.optionAt(id))) : null;
+						if (value != null) {
+							valueById[id] = value;
+							sourceById[id] = layer.source;
+						}
+					}
+					continue;
+				}
+				
+				for (Map.Entry<String, String> entry : layer.values.entrySet()) {
+					Option option = plan.getOption(entry.getKey());
+					if (option == null) {
+						unknown.add(entry.getKey());
+						continue;
+					}
+					
+					int id = plan.indexOf(option);
+					if (valueById[id] == null && entry.getValue() != null) {
+						valueById[id] = entry.getValue();
+						sourceById[id] = layer.source;
+					}
+				}
+			}
+			
+			int size = 0;
+			for (String value : valueById) {
+				if (value != null)
+					size++;
+			}
+			this.ids = new int[size];
+			this.values = new String[size];
+			this.sources = new ValueSource[size];
+			for (int id = 0, i = 0; id < count; id++) {
+				if (valueById[id] != null) {
+					ids[i] = id;
+					values[i] = valueById[id];
+					sources[i++] = sourceById[id];
+				}
+			}
+			this.undefined = Collections.unmodifiableList(unknown);
+		}
+		
+		int size() {
+			return ids.length;
+		}
+		
+		int idAt(int index) {
+			return ids[index];
+		}
+		
+		String valueAt(int index) {
+			return values[index];
+		}
+		
+		ValueSource sourceAt(int index) {
+			return sources[index];
+		}
+		
+		List<String> getUndefined() {
+			return undefined;
+		}
+	}
+}
@@ -0,0 +1,229 @@
+package com.commandlineparser.entity;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.commandlineparser.exception.ParseException;
+
+/**
+ * A glob pattern such as <code>logs/**&#47;*.gz</code>, expanded to the paths it matches as they are found.
+ * <p>
+ * The pattern is split into a base directory, its leading segments without wildcard, and the rest matched by a
+ * <code>glob:</code> {@link PathMatcher} against the paths relative to the base. Only the directories the rest can
+ * reach are walked: as deep as its number of segments, or without limit when it holds <code>**</code>. Symbolic
+ * links to directories are not followed.
+ */
+final class FileGlob {
+
+	private final Path base;
+	
+	/** matches the paths relative to the base, <code>null</code> if the pattern has no wildcard */
+	private final PathMatcher matcher;
+	private final int maxDepth;
+	
+	/**
+	 * @param pattern the glob pattern, its segments separated by <code>/</code>
+	 * @throws ParseException if the pattern is not a valid glob
+	 */
+	FileGlob(String pattern) throws ParseException {
+		String[] segments = pattern.split("/", -1);
+		int literal = 0;
+		while (literal < segments.length && !hasWildcard(segments[literal]))
+			literal++;
+		
+		if (literal == segments.length) {
+			this.base = Paths.get(pattern);
+			this.matcher = null;
+			this.maxDepth = 0;
+			return;
+		}
+		
+		StringBuilder dir = new StringBuilder();
+		for (int i = 0; i < literal; i++)
+			dir.append(segments[i]).append('/');
+		StringBuilder rest = new StringBuilder();
+		for (int i = literal; i < segments.length; i++)
+			rest.append(i > literal ? "/" : "").append(segments[i]);
+		
+		this.base = Paths.get(dir.length() == 0 ? "" : dir.toString());
+		this.maxDepth = rest.indexOf("**") != -1 ? Integer.MAX_VALUE : segments.length - literal;
+		try {
+			this.matcher = FileSystems.getDefault().getPathMatcher("glob:" + rest);
+		} catch (PatternSyntaxException e) {
+			throw new ParseException("Invalid file pattern " + pattern + ": " + e.getDescription());
+		}
+	}
+	
+	private static boolean hasWildcard(String segment) {
+		for (int i = 0; i < segment.length(); i++) {
+			char ch = segment.charAt(i);
+			if (ch == '*' || ch == '?' || ch == '[' || ch == '{' || ch == '\\')
+				return true;
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Walks the directories in the calling thread, each match is found when the stream reaches it.
+	 *
+	 * @return the matching paths in the order of the walk, the stream must be closed to release the directories
+	 * @throws UncheckedIOException if a directory cannot be read
+	 */
+	Stream<Path> stream() {
+		if (matcher == null)
+			return Files.exists(base, LinkOption.NOFOLLOW_LINKS) ? Stream.of(base) : Stream.<Path>empty();
+		if (!Files.isDirectory(base))
+			return Stream.empty();
+		
+		try {
+			return Files.walk(base, maxDepth).filter(path -> !path.equals(base) && matcher.matches(base.relativize(path)));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	/**
+	 * Walks the directories in <code>pool</code> as the stream is consumed: when the matches found so far have been
+	 * consumed, the directories left are listed in parallel, each by a task of its own. Nothing is walked while the
+	 * stream is not consumed, and the tasks never wait for the consumer.
+	 *
+	 * @param pool the pool listing the directories
+	 * @return the matching paths in no particular order, the stream must be closed
+	 * @throws UncheckedIOException if a directory cannot be read
+	 */
+	Stream<Path> stream(ForkJoinPool pool) {
+		if (matcher == null || !Files.isDirectory(base))
+			return stream();
+		
+		return StreamSupport.stream(new ParallelWalk(pool), false);
+	}
+	
+	@Override
+	public String toString() {
+		return "[ FileGlob: " + base + " :: " + matcher + " ]";
+	}
+	
+	/**
+	 * The matches of a parallel walk, found by listing the pending directories in batches.
+	 */
+	private final class ParallelWalk extends Spliterators.AbstractSpliterator<Path> {
+		
+		private final ForkJoinPool pool;
+		
+		/** the directories still to list */
+		private final Deque<DirectoryTask> pending = new ArrayDeque<>();
+		
+		/** the matches of the last batch not consumed yet */
+		private final Deque<Path> matches = new ArrayDeque<>();
+		
+		/** the first error of the walk, thrown when the matches found before it are consumed */
+		private IOException failure;
+		
+		ParallelWalk(ForkJoinPool pool) {
+			super(Long.MAX_VALUE, Spliterator.DISTINCT | Spliterator.NONNULL);
+			this.pool = pool;
+			pending.add(new DirectoryTask(base, 0));
+		}
+		
+		@Override
+		public boolean tryAdvance(Consumer<? super Path> action) {
+			while (matches.isEmpty()) {
+				if (failure != null)
+					throw new UncheckedIOException(failure);
+				if (pending.isEmpty())
+					return false;
+				
+				listDirectories();
+			}
+			
+			action.accept(matches.poll());
+			return true;
+		}
+		
+		/**
+		 * Lists as many pending directories as the pool has threads.
+		 */
+		private void listDirectories() {
+			final List<DirectoryTask> batch = new ArrayList<>();
+			while (!pending.isEmpty() && batch.size() < pool.getParallelism())
+				batch.add(pending.poll());
+			
+			pool.invoke(new RecursiveAction() {
+				
+				private static final long serialVersionUID = -2386150298127348810L;
+				
+				@Override
+				protected void compute() {
+					invokeAll(batch);
+				}
+			});
+			
+			for (DirectoryTask task : batch) {
+				matches.addAll(task.matches);
+				pending.addAll(task.subdirectories);
+				if (failure == null)
+					failure = task.failure;
+			}
+		}
+	}
+	
+	/**
+	 * Lists a directory, keeping its matching entries and the subdirectories the pattern reaches.
+	 */
+	private final class DirectoryTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 6428720371965153270L;
+		
+		private final transient Path dir;
+		private final int depth;
+		
+		final transient List<Path> matches = new ArrayList<>();
+		final transient List<DirectoryTask> subdirectories = new ArrayList<>();
+		transient IOException failure;
+		
+		DirectoryTask(Path dir, int depth) {
+			this.dir = dir;
+			this.depth = depth;
+		}
+		
+		@Override
+		protected void compute() {
+			try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+				for (Path entry : entries) {
+					if (matcher.matches(base.relativize(entry)))
+						matches.add(entry);
+					if (depth + 1 < maxDepth && Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS))
+						subdirectories.add(new DirectoryTask(entry, depth + 1));
+				}
+			} catch (NoSuchFileException e) {
+				//removed during the walk
+			} catch (DirectoryIteratorException e) {
+				failure = e.getCause();
+			} catch (IOException e) {
+				failure = e;
+			}
+		}
+	}
+}
@@ -1,20 +1,29 @@
 package com.commandlineparser.entity;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.Serializable;
-import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * A formatter of help message for command line options.
+ * <p>
+ * The help is written to a <code>PrintWriter</code> or to any <code>Appendable</code> as it is rendered. Each 
+ * description is wrapped in a single pass, and the rendered help is cached per options, arguments and settings of the
+ * formatter: the {@value #MAX_CACHED_HELP} help texts printed last are kept, whichever formatter printed them. The
+ * options are told apart by their version, which changes whenever an option or a group is added to them.
+ * <p>
+ * A subclass is rendered through its protected methods, <tt>renderOptions</tt>, <tt>renderWrappedText</tt>,
+ * <tt>findWrapPos</tt>, <tt>createPadding</tt> and <tt>rtrim</tt>, and its help is not cached.
  * 
  * @author Richard
  * @Date 2017-12-02 00:25:49
@@ -29,6 +38,22 @@ public class HelpFormatter {
 	public static final String DEFAULT_LONG_OPT_SEPARATOR = " ";
 	public static final String DEFAULT_ARG_NAME = "arg";
 	
+	static final int MAX_CACHED_HELP = 8;
+	
+	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+	private static final String SPACES = "                                                                ";
+	
+	/** key: the options, the arguments and the settings of a help, value: the rendered help */
+	private static final Map<List<Object>, String> HELP_CACHE = Collections.synchronizedMap(new LinkedHashMap<List<Object>, String>(16, 0.75f, true) {
+		
+		private static final long serialVersionUID = 2390417723565702947L;
+		
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<List<Object>, String> eldest) {
+			return size() > MAX_CACHED_HELP;
+		}
+	});
+	
 	private int defaultWidth = DEFAULT_WIDTH;
 	private int defaultLeftPad = DEFAULT_LEFT_PAD;
 	private int defaultDescPad = DEFAULT_DESC_PAD;
@@ -38,8 +63,8 @@ public class HelpFormatter {
 	private String defaultArgName = DEFAULT_ARG_NAME;
 	private String longOptSeparator = DEFAULT_LONG_OPT_SEPARATOR;
 	
-	private String defaultNewLine = System.getProperty("line.separator");	
-	protected Comparator<Option> optionComparator = new OptionComparator();
+	private String defaultNewLine = LINE_SEPARATOR;	
+	protected Comparator<Option> optionComparator = OPTION_COMPARATOR;
 	
 	/*---------getter and setter methods start-----------*/
 	public int getWidth() {
@@ -157,20 +182,124 @@ public class HelpFormatter {
 	public void printHelp(PrintWriter pw, int width, String cmdLineSyntax, String header, Options options, int leftPad, int descPad, String footer, boolean autoUsage) {
 		if (cmdLineSyntax == null || cmdLineSyntax.length() == 0)
 			throw new IllegalArgumentException("cmdLineSyntax not provided");
+		if (isSubclass()) {
+			if (autoUsage)
+				printUsage(pw, width, cmdLineSyntax, options);
+			else
+				printUsage(pw, width, cmdLineSyntax);
+			if (header != null && header.trim().length() > 0)
+				printWrapped(pw, width, header);
+			
+			printOptions(pw, width, options, leftPad, descPad);
+			
+			if (footer != null && footer.trim().length() > 0)
+				printWrapped(pw, width, footer);
+			return;
+		}
+		
+		try {
+			writeHelp(pw, width, cmdLineSyntax, header, options, leftPad, descPad, footer, autoUsage, LINE_SEPARATOR);
+		} catch (IOException e) {    //cannot happen
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	/**
+	 * Writes the help to <code>out</code>, each line ending with {@link #getNewLine()}. The help is written as it is 
+	 * rendered the first time, and copied from the cache afterwards for the same options, arguments and settings.
+	 * 
+	 * @param out the destination of the help, a <code>Writer</code> or a <code>StringBuilder</code> for instance
+	 * @throws IOException if <code>out</code> cannot be written
+	 */
+	public void printHelp(Appendable out, int width, String cmdLineSyntax, String header, Options options, String footer, boolean autoUsage) throws IOException {
+		if (cmdLineSyntax == null || cmdLineSyntax.length() == 0)
+			throw new IllegalArgumentException("cmdLineSyntax not provided");
+		if (isSubclass()) {
+			appendHelp(out, width, cmdLineSyntax, header, options, getLeftPadding(), getDescPadding(), footer, autoUsage, getNewLine());
+			return;
+		}
+		
+		writeHelp(out, width, cmdLineSyntax, header, options, getLeftPadding(), getDescPadding(), footer, autoUsage, getNewLine());
+	}
+	
+	/**
+	 * Returns <tt>true</tt> for a subclass, whose protected methods may render the help differently.
+	 */
+	private boolean isSubclass() {
+		return getClass() != HelpFormatter.class;
+	}
+	
+	/**
+	 * Writes the help from the cache, or renders it to <code>out</code> and keeps a copy of it in the cache.
+	 * 
+	 * @param lineEnd the end of the usage, the header, the options and the footer
+	 */
+	private void writeHelp(Appendable out, int width, String cmdLineSyntax, String header, Options options, int leftPad, 
+			int descPad, String footer, boolean autoUsage, String lineEnd) throws IOException {
+		List<Object> key = Arrays.<Object>asList(options, options.getVersion(), width, cmdLineSyntax, header, footer, 
+				leftPad, descPad, autoUsage, lineEnd, getSyntaxPrefix(), getOptPrefix(), getLongOptPrefix(), getArgName(), 
+				getLongOptSeparator(), getNewLine(), getOptionComparator());
+		String help = HELP_CACHE.get(key);
+		if (help != null) {
+			out.append(help);
+			return;
+		}
+		
+		Recorder recorder = new Recorder(out);
+		appendHelp(recorder, width, cmdLineSyntax, header, options, leftPad, descPad, footer, autoUsage, lineEnd);
+		HELP_CACHE.put(key, recorder.toString());
+	}
+	
+	/**
+	 * Writes the help, the text of a subclass being wrapped by {@link #renderWrappedText} and its options rendered
+	 * by {@link #renderOptions}.
+	 */
+	private void appendHelp(Appendable out, int width, String cmdLineSyntax, String header, Options options, int leftPad, 
+			int descPad, String footer, boolean autoUsage, String lineEnd) throws IOException {
 		if (autoUsage)
-			printUsage(pw, width, cmdLineSyntax, options);
+			appendUsage(out, width, cmdLineSyntax, options);
 		else
-			printUsage(pw, width, cmdLineSyntax);
+			appendUsage(out, width, cmdLineSyntax);
+		out.append(lineEnd);
+		
 		if (header != null && header.trim().length() > 0)
-			printWrapped(pw, width, header);
+			appendWrappedBlock(out, width, 0, header).append(lineEnd);
 		
-		printOptions(pw, width, options, leftPad, descPad);
+		if (isSubclass())
+			out.append(renderOptions(new StringBuilder(), width, options, leftPad, descPad));
+		else
+			appendOptions(out, width, options, leftPad, descPad);
+		out.append(lineEnd);
 		
 		if (footer != null && footer.trim().length() > 0)
-			printWrapped(pw, width, footer);
+			appendWrappedBlock(out, width, 0, footer).append(lineEnd);
 	}
 	
 	public void printUsage(PrintWriter pw, int width, String app, Options options) {
+		if (isSubclass()) {
+			StringBuilder sb = usageLine(app, options);
+			printWrapped(pw, width, sb.indexOf(" ") + 1, sb.toString());
+			return;
+		}
+		
+		try {
+			appendUsage(pw, width, app, options);
+		} catch (IOException e) {    //cannot happen
+			throw new UncheckedIOException(e);
+		}
+		pw.println();
+	}
+	
+	private void appendUsage(Appendable out, int width, String app, Options options) throws IOException {
+		StringBuilder sb = usageLine(app, options);
+		
+		appendWrappedBlock(out, width, sb.indexOf(" ") + 1, sb);
+	}
+	
+	/**
+	 * Returns the usage of <code>app</code> listing the options, before it is wrapped.
+	 */
+	private StringBuilder usageLine(String app, Options options) {
 		StringBuilder sb = new StringBuilder(getSyntaxPrefix()).append(app).append(" ");
 		
 		Collection<OptionGroup> processedGroups = new ArrayList<>();
@@ -198,7 +327,7 @@ public class HelpFormatter {
 				sb.append(" ");
 		}
 		
-		printWrapped(pw, width, sb.toString().indexOf(' ') + 1, sb.toString());
+		return sb;
 	}
 	
 	private void appendOptionGroup(StringBuilder sb, OptionGroup group) {
@@ -236,16 +365,38 @@ public class HelpFormatter {
 	}
 	
 	public void printUsage(PrintWriter pw, int width, String cmdLineSyntax) {
+		if (isSubclass()) {
+			int argPos = cmdLineSyntax.indexOf(' ') + 1;
+			printWrapped(pw, width, getSyntaxPrefix().length() + argPos, getSyntaxPrefix() + cmdLineSyntax);
+			return;
+		}
+		
+		try {
+			appendUsage(pw, width, cmdLineSyntax);
+		} catch (IOException e) {    //cannot happen
+			throw new UncheckedIOException(e);
+		}
+		pw.println();
+	}
+	
+	private void appendUsage(Appendable out, int width, String cmdLineSyntax) throws IOException {
 		int argPos = cmdLineSyntax.indexOf(' ') + 1;
 		
-		printWrapped(pw, width, getSyntaxPrefix().length() + argPos, getSyntaxPrefix() + cmdLineSyntax);
+		appendWrappedBlock(out, width, getSyntaxPrefix().length() + argPos, getSyntaxPrefix() + cmdLineSyntax);
 	}
 	
 	public void printOptions(PrintWriter pw, int width, Options options, int leftPad, int descPad) {
-		StringBuilder sb = new StringBuilder();
+		if (isSubclass()) {
+			pw.println(renderOptions(new StringBuilder(), width, options, leftPad, descPad).toString());
+			return;
+		}
 		
-		renderOptions(sb, width, options, leftPad, descPad);
-		pw.println(sb.toString());
+		try {
+			appendOptions(pw, width, options, leftPad, descPad);
+		} catch (IOException e) {    //cannot happen
+			throw new UncheckedIOException(e);
+		}
+		pw.println();
 	}
 	
 	public void printWrapped(PrintWriter pw, int width, String text) {
@@ -253,23 +404,101 @@ public class HelpFormatter {
 	}
 	
 	public void printWrapped(PrintWriter pw, int width, int nextLineTabStop, String text) {
-		StringBuilder sb = new StringBuilder(text.length());
-		
-		renderWrappedTextBlock(sb, width, nextLineTabStop, text);
-		pw.println(sb.toString());
+		try {
+			appendWrappedBlock(pw, width, nextLineTabStop, text);
+		} catch (IOException e) {    //cannot happen
+			throw new UncheckedIOException(e);
+		}
+		pw.println();
 	}
 	
 	protected StringBuilder renderOptions(StringBuilder sb, int width, Options options, int leftPad, int descPad) {
+		if (!isSubclass()) {
+			try {
+				return (StringBuilder) appendOptions(sb, width, options, leftPad, descPad);
+			} catch (IOException e) {    //cannot happen
+				throw new UncheckedIOException(e);
+			}
+		}
+		
 		final String lpad = createPadding(leftPad);
 		final String dpad = createPadding(descPad);
 		
-		int max = 0;
 		List<StringBuilder> prefixList = new ArrayList<>();
-		List<Option> optList = options.helpOptions();
+		List<Option> optList = sortedHelpOptions(options);
+		int max = appendPrefixes(optList, lpad, prefixList);
 		
+		int x = 0;
+		for (Iterator<Option> it = optList.iterator(); it.hasNext(); ) {
+			Option option = it.next();
+			StringBuilder optBuf = new StringBuilder(prefixList.get(x++).toString());
+			
+			if (optBuf.length() < max) {
+				optBuf.append(createPadding(max - optBuf.length()));
+			}
+			
+			optBuf.append(dpad);
+			int nextLineTabStop = max + descPad;
+			
+			if (option.getDescription() != null)
+				optBuf.append(option.getDescription());
+			renderWrappedText(sb, width, nextLineTabStop, optBuf.toString());
+			
+			if (it.hasNext())
+				sb.append(getNewLine());
+		}
+		
+		return sb;
+	}
+	
+	/**
+	 * Writes the options, one per line followed by its wrapped description. The descriptions start at the same
+	 * column, after the longest option.
+	 */
+	private Appendable appendOptions(Appendable out, int width, Options options, int leftPad, int descPad) throws IOException {
+		List<StringBuilder> prefixList = new ArrayList<>();
+		List<Option> optList = sortedHelpOptions(options);
+		int max = appendPrefixes(optList, appendPadding(new StringBuilder(), leftPad), prefixList);
+		
+		int nextLineTabStop = max + descPad;
+		for (int i = 0; i < optList.size(); i++) {
+			Option option = optList.get(i);
+			StringBuilder optBuf = prefixList.get(i);
+			
+			//the prefix is padded in place, it is not used afterwards
+			appendPadding(optBuf, nextLineTabStop - optBuf.length());
+			if (option.getDescription() != null)
+				optBuf.append(option.getDescription());
+			appendWrapped(out, width, nextLineTabStop, optBuf, 0, optBuf.length());
+			
+			if (i + 1 < optList.size())
+				out.append(getNewLine());
+		}
+		
+		return out;
+	}
+	
+	/**
+	 * @return the options listed by the help, sorted by the comparator of this formatter if any
+	 */
+	private List<Option> sortedHelpOptions(Options options) {
+		List<Option> optList = options.helpOptions();
 		if (getOptionComparator() != null)
 			Collections.sort(optList, getOptionComparator());
 		
+		return optList;
+	}
+	
+	/**
+	 * Builds the first column of each option of <code>optList</code>: the left padding, the names of the option and
+	 * its argument.
+	 * 
+	 * @param lpad the left padding
+	 * @param prefixList receives the columns, in the order of the options
+	 * @return the length of the longest column
+	 */
+	private int appendPrefixes(List<Option> optList, CharSequence lpad, List<StringBuilder> prefixList) {
+		int max = 0;
 		for (Option option : optList) {
 			StringBuilder optBuf = new StringBuilder();
 			
@@ -295,30 +524,20 @@ public class HelpFormatter {
 			max = optBuf.length() > max ? optBuf.length() : max;
 		}
 		
-		int x = 0;
-		for (Iterator<Option> it = optList.iterator(); it.hasNext(); ) {
-			Option option = it.next();
-			StringBuilder optBuf = new StringBuilder(prefixList.get(x++).toString());
-			
-			if (optBuf.length() < max) {
-				optBuf.append(createPadding(max - optBuf.length()));
+		return max;
+	}
+	
+	protected StringBuilder renderWrappedText(StringBuilder sb, int width, int nextLineTabStop, String text) {
+		if (!isSubclass()) {
+			try {
+				appendWrapped(sb, width, nextLineTabStop, text, 0, text.length());
+			} catch (IOException e) {    //cannot happen
+				throw new UncheckedIOException(e);
 			}
 			
-			optBuf.append(dpad);
-			int nextLineTabStop = max + descPad;
-			
-			if (option.getDescription() != null)
-				optBuf.append(option.getDescription());
-			renderWrappedText(sb, width, nextLineTabStop, optBuf.toString());
-			
-			if (it.hasNext())
-				sb.append(getNewLine());
+			return sb;
 		}
 		
-		return sb;
-	}
-	
-	protected StringBuilder renderWrappedText(StringBuilder sb, int width, int nextLineTabStop, String text) {
 		int pos = findWrapPos(text, width, 0);
 		
 		if (pos == -1) {
@@ -350,22 +569,140 @@ public class HelpFormatter {
 		}
 	}
 	
-	private Appendable renderWrappedTextBlock(StringBuilder sb, int width, int nextLineTabStop, String text) {
-		try {
-			BufferedReader br = new BufferedReader(new StringReader(text));
-			String line;
-			boolean firstLine = true;
-			while ((line = br.readLine()) != null) {
-				if (!firstLine)
-					sb.append(getNewLine());
-				else
-					firstLine = false;
-				renderWrappedText(sb, width, nextLineTabStop, line);
+	/**
+	 * Wraps each line of <code>text</code>, the lines being separated by {@link #getNewLine()}. The lines of a 
+	 * subclass are wrapped by {@link #renderWrappedText}.
+	 */
+	private Appendable appendWrappedBlock(Appendable out, int width, int nextLineTabStop, CharSequence text) throws IOException {
+		int length = text.length();
+		int start = 0;
+		while (start < length) {
+			int end = start;
+			while (end < length && text.charAt(end) != '\n' && text.charAt(end) != '\r')
+				end++;
+			
+			if (start > 0)
+				out.append(getNewLine());
+			if (isSubclass())
+				out.append(renderWrappedText(new StringBuilder(), width, nextLineTabStop, text.subSequence(start, end).toString()));
+			else
+				appendWrapped(out, width, nextLineTabStop, text, start, end);
+			
+			//a line ends with \n, \r or \r\n
+			start = end + (end + 1 < length && text.charAt(end) == '\r' && text.charAt(end + 1) == '\n' ? 2 : 1);
+		}
+		
+		return out;
+	}
+	
+	/**
+	 * Wraps <code>text</code> between <code>from</code> and <code>end</code> at <code>width</code>, the lines 
+	 * following the first one being indented by <code>nextLineTabStop</code> and trimmed.
+	 * <p>
+	 * The text is read once: each line is written as a range of the text behind its padding, and the next line feed
+	 * and tab are looked up only when the line passes them.
+	 */
+	private void appendWrapped(Appendable out, int width, int nextLineTabStop, CharSequence text, int from, int end) throws IOException {
+		int newline = indexOf(text, '\n', from, end);
+		int tab = indexOf(text, '\t', from, end);
+		int pos = wrapPos(text, from, end, 0, width, newline, tab);
+		
+		if (pos == -1) {
+			appendTrimmed(out, text, from, end, 0);
+			return;
+		}
+		
+		appendTrimmed(out, text, from, from + pos, 0);
+		out.append(getNewLine());
+		
+		if (nextLineTabStop >= width)
+			nextLineTabStop = 1;
+		
+		//the following lines are trimmed at both ends
+		while (end > from && text.charAt(end - 1) <= ' ')
+			end--;
+		int start = Math.min(from + pos, end);
+		
+		while (true) {
+			while (start < end && text.charAt(start) <= ' ')
+				start++;
+			if (newline < start)
+				newline = indexOf(text, '\n', start, end);
+			if (tab < start)
+				tab = indexOf(text, '\t', start, end);
+			
+			pos = wrapPos(text, start, end, nextLineTabStop, width, newline, tab);
+			if (pos == -1) {
+				appendPadding(out, nextLineTabStop).append(text, start, end);
+				return;
 			}
-		} catch (IOException e) {    //cannot happen
-			e.printStackTrace();
+			
+			appendTrimmed(out, text, start, start + pos - nextLineTabStop, nextLineTabStop);
+			out.append(getNewLine());
+			start += pos - nextLineTabStop;
+		}
+	}
+	
+	/**
+	 * Finds the wrap position as {@link #findWrapPos} in the line made of <code>lead</code> spaces followed by 
+	 * <code>text</code> between <code>start</code> and <code>end</code>, without building the line.
+	 * 
+	 * @param newline the position of the next line feed in <code>text</code>, <code>end</code> or beyond if none
+	 * @param tab the position of the next tab in <code>text</code>, <code>end</code> or beyond if none
+	 * @return the position in the line, -1 if the line fits in <code>width</code>
+	 */
+	private static int wrapPos(CharSequence text, int start, int end, int lead, int width, int newline, int tab) {
+		if (newline < end && lead + newline - start <= width)
+			return lead + newline - start + 1;
+		
+		if (tab < end && lead + tab - start <= width)
+			return lead + tab - start + 1;
+		
+		if (width >= lead + end - start)
+			return -1;
+		
+		//look for the last whitespace character before width, the padding excluded
+		for (int pos = width; pos >= lead && pos > 0; --pos) {
+			final char c = text.charAt(start + pos - lead);
+			if (c == ' ' || c == '\n' || c == '\r')
+				return pos;
 		}
 		
+		//if not found, simply chop at width
+		return width;
+	}
+	
+	private static int indexOf(CharSequence text, char ch, int from, int end) {
+		for (int i = from; i < end; i++) {
+			if (text.charAt(i) == ch)
+				return i;
+		}
+		
+		return end;
+	}
+	
+	/**
+	 * Writes <code>lead</code> spaces and <code>text</code> between <code>from</code> and <code>to</code> without its
+	 * trailing whitespace, nothing if it is blank.
+	 */
+	private static void appendTrimmed(Appendable out, CharSequence text, int from, int to, int lead) throws IOException {
+		while (to > from && Character.isWhitespace(text.charAt(to - 1)))
+			--to;
+		if (to > from)
+			appendPadding(out, lead).append(text, from, to);
+	}
+	
+	private static <A extends Appendable> A appendPadding(A out, int len) throws IOException {
+		for (int i = len; i > 0; i -= SPACES.length())
+			out.append(SPACES, 0, Math.min(i, SPACES.length()));
+		
+		return out;
+	}
+	
+	private static StringBuilder appendPadding(StringBuilder sb, int len) {
+		for (int i = 0; i < len; i++)
+			sb.append(' ');
+		
 		return sb;
 	}
 	
@@ -416,6 +753,48 @@ public class HelpFormatter {
 		return s.substring(0, pos);
 	}
 	
+	/**
+	 * An <code>Appendable</code> writing to another one and keeping a copy of what is written.
+	 */
+	private static class Recorder implements Appendable {
+		
+		private final Appendable out;
+		private final StringBuilder copy = new StringBuilder();
+		
+		Recorder(Appendable out) {
+			this.out = out;
+		}
+		
+		@Override
+		public Appendable append(CharSequence csq) throws IOException {
+			out.append(csq);
+			copy.append(csq);
+			return this;
+		}
+		
+		@Override
+		public Appendable append(CharSequence csq, int start, int end) throws IOException {
+			out.append(csq, start, end);
+			copy.append(csq, start, end);
+			return this;
+		}
+		
+		@Override
+		public Appendable append(char c) throws IOException {
+			out.append(c);
+			copy.append(c);
+			return this;
+		}
+		
+		@Override
+		public String toString() {
+			return copy.toString();
+		}
+	}
+	
+	/** the default comparator, shared so that the help of formatters left with their defaults is cached once */
+	private static final Comparator<Option> OPTION_COMPARATOR = new OptionComparator();
+	
 	private static class OptionComparator implements Comparator<Option>, Serializable {
 
 		private static final long serialVersionUID = 6570350914735724203L;
@@ -0,0 +1,77 @@
+package com.commandlineparser.entity;
+
+import java.util.Properties;
+
+import com.commandlineparser.exception.ParseException;
+
+/**
+ * A parse receiving its arguments one at a time, created by {@link DefaultParser#startParse}.
+ * <p>
+ * Each argument is handled when it is fed, against the state left by the previous ones, so feeding an argument costs
+ * the same whatever the number of arguments before it. The checks needing the whole command line, the arguments of
+ * the last option and the required options, run in {@link #finish()}. A parser is not thread safe and must not be
+ * used after an exception.
+ */
+public final class IncrementalParser {
+
+	private final DefaultParser parser;
+	private final ParseContext ctx;
+	private final Properties props;
+	
+	/** the listener building the command line, <code>null</code> if the events go to the listener of the caller */
+	private final CommandLineListener commandLine;
+	
+	private boolean finished;
+	
+	IncrementalParser(DefaultParser parser, ParseContext ctx, Properties props, CommandLineListener commandLine) {
+		this.parser = parser;
+		this.ctx = ctx;
+		this.props = props;
+		this.commandLine = commandLine;
+	}
+	
+	/**
+	 * Handles the next argument.
+	 *
+	 * @param argument
+	 * @return this parser
+	 * @throws ParseException if the argument cannot be parsed
+	 */
+	public IncrementalParser feed(String argument) throws ParseException {
+		checkNotFinished();
+		parser.handleToken(ctx, argument);
+		
+		return this;
+	}
+	
+	/**
+	 * @return a snapshot of the state of the parse after the arguments fed so far
+	 */
+	public ParseState state() {
+		return ctx.state();
+	}
+	
+	/**
+	 * Ends the parse: checks the arguments of the last option, adds the default values and checks the required
+	 * options.
+	 *
+	 * @return the parsed command line, <code>null</code> if the events went to a {@link ParseListener}
+	 * @throws ParseException
+	 */
+	public CommandLine finish() throws ParseException {
+		checkNotFinished();
+		finished = true;
+		parser.finish(ctx, props);
+		
+		return commandLine != null ? commandLine.getCommandLine() : null;
+	}
+	
+	public boolean isFinished() {
+		return finished;
+	}
+	
+	private void checkNotFinished() {
+		if (finished)
+			throw new IllegalStateException("The parse is finished");
+	}
+}
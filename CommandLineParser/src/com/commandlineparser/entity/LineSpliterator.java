@@ -0,0 +1,180 @@
+package com.commandlineparser.entity;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import com.commandlineparser.exception.ParseException;
+
+/**
+ * Reads the lines of a memory-mapped file and parses each of them as a command line.
+ * <p>
+ * The spliterator covers a range of bytes starting at the beginning of a line. Only a window of the range is
+ * mapped at a time and a line is decoded only when it is parsed, so the memory used does not depend on the size
+ * of the file. Splitting cuts the range at the first line boundary after its middle.
+ */
+final class LineSpliterator implements Spliterator<ParsedLine> {
+
+	/** the size of the mapped window, grown for longer lines */
+	private static final int WINDOW_SIZE = 1 << 24;
+	
+	/** ranges smaller than this are not split */
+	private static final int MIN_SPLIT = 1 << 16;
+	
+	private final DefaultParser parser;
+	private final ParsePlan plan;
+	private final Properties props;
+	private final boolean stopAtNonOption;
+	private final FileChannel channel;
+	
+	private long position;
+	private final long end;
+	
+	private MappedByteBuffer window;
+	private long windowStart;
+	private long windowEnd;
+	
+	private byte[] bytes = new byte[256];
+	private final ShellTokenizer tokenizer = new ShellTokenizer();
+	
+	LineSpliterator(DefaultParser parser, ParsePlan plan, Properties props, boolean stopAtNonOption,
+			FileChannel channel, long position, long end) {
+		this.parser = parser;
+		this.plan = plan;
+		this.props = props;
+		this.stopAtNonOption = stopAtNonOption;
+		this.channel = channel;
+		this.position = position;
+		this.end = end;
+	}
+	
+	@Override
+	public boolean tryAdvance(Consumer<? super ParsedLine> action) {
+		if (position >= end)
+			return false;
+		
+		try {
+			long lineStart = position;
+			long lineEnd = findLineEnd(lineStart);
+			position = lineEnd + 1;
+			
+			action.accept(parse(lineStart, decode(lineStart, lineEnd)));
+			return true;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	@Override
+	public Spliterator<ParsedLine> trySplit() {
+		if (end - position < MIN_SPLIT)
+			return null;
+		
+		try {
+			long split = nextLineStart(position + (end - position) / 2);
+			if (split >= end)
+				return null;
+			
+			LineSpliterator prefix = new LineSpliterator(parser, plan, props, stopAtNonOption, channel, position, split);
+			position = split;
+			return prefix;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	@Override
+	public long estimateSize() {
+		return end - position;
+	}
+	
+	@Override
+	public int characteristics() {
+		return ORDERED | NONNULL | IMMUTABLE;
+	}
+	
+	private ParsedLine parse(long offset, String line) {
+		try {
+			CommandLine cmd = parser.parse(plan, tokenizer.tokenize(line), props, stopAtNonOption);
+			return new ParsedLine(offset, line, cmd, null);
+		} catch (ParseException e) {
+			return new ParsedLine(offset, line, null, e);
+		}
+	}
+	
+	/**
+	 * Returns the position of the line feed ending the line at <code>lineStart</code>, or the end of the range.
+	 */
+	private long findLineEnd(long lineStart) throws IOException {
+		long from = lineStart;
+		while (true) {
+			if (lineStart < windowStart || from >= windowEnd)
+				map(lineStart, from - lineStart);
+			
+			for (long i = from; i < windowEnd; i++) {
+				if (window.get((int) (i - windowStart)) == '\n')
+					return i;
+			}
+			
+			if (windowEnd == end)
+				return end;
+			from = windowEnd;
+		}
+	}
+	
+	/**
+	 * Maps a window starting at <code>start</code> and holding more than <code>length</code> bytes.
+	 */
+	private void map(long start, long length) throws IOException {
+		long size = Math.min(Math.max(WINDOW_SIZE, length * 2), end - start);
+		if (size > Integer.MAX_VALUE)
+			throw new IOException("Line too long at offset " + start);
+		
+		window = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+		windowStart = start;
+		windowEnd = start + size;
+	}
+	
+	private String decode(long lineStart, long lineEnd) {
+		int length = (int) (lineEnd - lineStart);
+		if (length > 0 && window.get((int) (lineEnd - 1 - windowStart)) == '\r')
+			length--;
+		
+		if (bytes.length < length)
+			bytes = new byte[Math.max(length, bytes.length * 2)];
+		
+		int base = (int) (lineStart - windowStart);
+		for (int i = 0; i < length; i++)
+			bytes[i] = window.get(base + i);
+		
+		return new String(bytes, 0, length, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Returns the position following the first line feed at or after <code>from</code>.
+	 */
+	private long nextLineStart(long from) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(8192);
+		long pos = from;
+		while (pos < end) {
+			buffer.clear();
+			int read = channel.read(buffer, pos);
+			if (read <= 0)
+				break;
+			
+			for (int i = 0; i < read && pos + i < end; i++) {
+				if (buffer.get(i) == '\n')
+					return pos + i + 1;
+			}
+			pos += read;
+		}
+		
+		return end;
+	}
+}
@@ -0,0 +1,274 @@
+package com.commandlineparser.entity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An immutable radix trie of the long option names.
+ * <p>
+ * A single walk over a name answers all the questions the parser asks about it: whether it is a registered long
+ * option, the abbreviation of exactly one option, an ambiguous abbreviation, and which registered name is its
+ * longest prefix (-Xmx512m). The walk touches each character of the name at most once and allocates nothing.
+ */
+final class LongOptionTrie {
+
+	private static final Node[] NO_CHILDREN = new Node[0];
+	
+	private final Node root = new Node("");
+	
+	LongOptionTrie(Iterable<Option> options) {
+		int order = 0;
+		for (Option option : options)
+			insert(option, order++);
+		root.complete();
+	}
+	
+	/**
+	 * Walks the trie along the name held by <code>str</code> between <code>start</code> (inclusive) and
+	 * <code>end</code> (exclusive) and stores the outcome in <code>match</code>.
+	 *
+	 * @param maxPrefix the maximum length of the prefix recorded in {@link Match#getPrefix()}
+	 */
+	void walk(CharSequence str, int start, int end, int maxPrefix, Match match) {
+		match.reset();
+		
+		Node node = root;
+		int i = start;
+		while (true) {
+			if (node.option != null && i - start <= maxPrefix)
+				match.prefix = node.option;
+			
+			if (i == end) {
+				match.node = node;
+				match.exact = node.option != null;
+				return;
+			}
+			
+			Node child = node.child(str.charAt(i));
+			if (child == null)
+				return;
+			
+			String label = child.label;
+			int k = 0;
+			while (k < label.length() && i < end && label.charAt(k) == str.charAt(i)) {
+				k++;
+				i++;
+			}
+			
+			if (k == label.length()) {
+				node = child;
+			} else {
+				//the name ends inside the edge, every name below the edge starts with it
+				if (i == end)
+					match.node = child;
+				return;
+			}
+		}
+	}
+	
+	private void insert(Option option, int order) {
+		String name = option.getLongOpt();
+		Node node = root;
+		int pos = 0;
+		
+		while (pos < name.length()) {
+			Node child = node.child(name.charAt(pos));
+			if (child == null) {
+				child = new Node(name.substring(pos));
+				node.addChild(child);
+				node = child;
+				break;
+			}
+			
+			String label = child.label;
+			int k = 0;
+			while (k < label.length() && pos < name.length() && label.charAt(k) == name.charAt(pos)) {
+				k++;
+				pos++;
+			}
+			
+			if (k < label.length()) {
+				//split the edge at the first differing character
+				Node middle = new Node(label.substring(0, k));
+				node.replaceChild(middle);
+				child.label = label.substring(k);
+				middle.addChild(child);
+				child = middle;
+			}
+			node = child;
+		}
+		
+		node.option = option;
+		node.order = order;
+	}
+	
+	/**
+	 * The outcome of a {@link LongOptionTrie#walk}. A match is meant to be reused by the owner of a parse.
+	 */
+	static final class Match {
+		/** the node below which every name starts with the walked name, <code>null</code> if there is none */
+		private Node node;
+		private boolean exact;
+		private Option prefix;
+		
+		private void reset() {
+			node = null;
+			exact = false;
+			prefix = null;
+		}
+		
+		/**
+		 * @return <code>true</code> if no long option starts with the walked name
+		 */
+		boolean isEmpty() {
+			return node == null;
+		}
+		
+		/**
+		 * @return <code>true</code> if the walked name is not a long option but abbreviates several of them
+		 */
+		boolean isAmbiguous() {
+			return node != null && !exact && node.size > 1;
+		}
+		
+		/**
+		 * @return the option named or uniquely abbreviated by the walked name, <code>null</code> otherwise
+		 */
+		Option getOption() {
+			if (node == null)
+				return null;
+			
+			return exact ? node.option : node.single;
+		}
+		
+		/**
+		 * @return the option with the longest name that is a prefix of the walked name, <code>null</code> if none
+		 */
+		Option getPrefix() {
+			return prefix;
+		}
+		
+		/**
+		 * Adds every option whose long name starts with the walked name, in the order of the names.
+		 *
+		 * @param options receives the options
+		 */
+		void collectOptions(List<Option> options) {
+			if (node != null)
+				node.collectOptions(options);
+		}
+		
+		/**
+		 * @return the long names matching the walked name, in the order the options were added
+		 */
+		List<String> getCandidates() {
+			if (node == null)
+				return new ArrayList<>();
+			if (exact)
+				return Collections.singletonList(node.option.getLongOpt());
+			
+			List<Node> terminals = new ArrayList<>(node.size);
+			node.collect(terminals);
+			Collections.sort(terminals, new Comparator<Node>() {
+				@Override
+				public int compare(Node n1, Node n2) {
+					return Integer.compare(n1.order, n2.order);
+				}
+			});
+			
+			List<String> candidates = new ArrayList<>(terminals.size());
+			for (Node terminal : terminals)
+				candidates.add(terminal.option.getLongOpt());
+			
+			return candidates;
+		}
+	}
+	
+	private static final class Node {
+		/** the characters of the edge leading to this node */
+		private String label;
+		private Node[] children = NO_CHILDREN;
+		
+		/** the option whose long name ends at this node */
+		private Option option;
+		private int order;
+		
+		/** the number of names ending at or below this node */
+		private int size;
+		/** the only option at or below this node, if there is exactly one */
+		private Option single;
+		
+		Node(String label) {
+			this.label = label;
+		}
+		
+		Node child(char ch) {
+			int low = 0;
+			int high = children.length - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				char c = children[mid].label.charAt(0);
+				
+				if (c < ch)
+					low = mid + 1;
+				else if (c > ch)
+					high = mid - 1;
+				else
+					return children[mid];
+			}
+			
+			return null;
+		}
+		
+		void addChild(Node child) {
+			char ch = child.label.charAt(0);
+			int pos = 0;
+			while (pos < children.length && children[pos].label.charAt(0) < ch)
+				pos++;
+			
+			Node[] result = new Node[children.length + 1];
+			System.arraycopy(children, 0, result, 0, pos);
+			result[pos] = child;
+			System.arraycopy(children, pos, result, pos + 1, children.length - pos);
+			children = result;
+		}
+		
+		void replaceChild(Node child) {
+			char ch = child.label.charAt(0);
+			for (int i = 0; i < children.length; i++) {
+				if (children[i].label.charAt(0) == ch)
+					children[i] = child;
+			}
+		}
+		
+		void complete() {
+			size = option != null ? 1 : 0;
+			single = option;
+			for (Node child : children) {
+				child.complete();
+				size += child.size;
+				if (child.single != null)
+					single = child.single;
+			}
+			
+			if (size != 1)
+				single = null;
+		}
+		
+		void collect(List<Node> terminals) {
+			if (option != null)
+				terminals.add(this);
+			for (Node child : children)
+				child.collect(terminals);
+		}
+		
+		void collectOptions(List<Option> options) {
+			if (option != null)
+				options.add(option);
+			for (Node child : children)
+				child.collectOptions(options);
+		}
+	}
+}
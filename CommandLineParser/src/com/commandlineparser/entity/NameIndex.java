@@ -0,0 +1,145 @@
+package com.commandlineparser.entity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable, collision-free hash table of option names.
+ * <p>
+ * The table is built with the hash-and-displace scheme: the names are first spread over buckets, then every bucket
+ * gets a seed which sends all of its names to distinct free slots. A lookup costs two hashes of the name and one
+ * comparison, and works directly on a range of a <code>CharSequence</code> so the caller never has to cut the name
+ * out of the token.
+ */
+final class NameIndex {
+
+	/** the number of seeds tried for a bucket before the table is enlarged */
+	private static final int MAX_SEED = 1 << 12;
+	
+	private final int[] seeds;
+	private final String[] keys;
+	private final Option[] values;
+	
+	NameIndex(Map<String, Option> map) {
+		int n = map.size();
+		int buckets = tableSize(n);
+		int slots = tableSize(n * 2);
+		
+		while (true) {
+			int[] s = new int[buckets];
+			String[] k = new String[slots];
+			Option[] v = new Option[slots];
+			
+			if (build(map, s, k, v)) {
+				this.seeds = s;
+				this.keys = k;
+				this.values = v;
+				return;
+			}
+			slots <<= 1;
+		}
+	}
+	
+	/**
+	 * Returns the option registered with the name held by <code>str</code> between <code>start</code> (inclusive)
+	 * and <code>end</code> (exclusive), or <code>null</code> if there is none.
+	 */
+	Option get(CharSequence str, int start, int end) {
+		int seed = seeds[hash(str, start, end, 0) & (seeds.length - 1)];
+		if (seed == 0)
+			return null;
+		
+		int slot = hash(str, start, end, seed) & (keys.length - 1);
+		return Util.regionEquals(keys[slot], str, start, end) ? values[slot] : null;
+	}
+	
+	Option get(String name) {
+		return get(name, 0, name.length());
+	}
+	
+	private static boolean build(Map<String, Option> map, int[] seeds, String[] keys, Option[] values) {
+		List<List<String>> buckets = new ArrayList<>(seeds.length);
+		for (int i = 0; i < seeds.length; i++)
+			buckets.add(new ArrayList<String>(2));
+		for (String name : map.keySet())
+			buckets.get(hash(name, 0, name.length(), 0) & (seeds.length - 1)).add(name);
+		
+		//place the largest buckets first, while most of the slots are still free
+		Integer[] order = new Integer[seeds.length];
+		for (int i = 0; i < order.length; i++)
+			order[i] = i;
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer b1, Integer b2) {
+				return buckets.get(b2).size() - buckets.get(b1).size();
+			}
+		});
+		
+		int[] placed = new int[8];
+		for (int b : order) {
+			List<String> bucket = buckets.get(b);
+			if (bucket.isEmpty())
+				break;
+			if (placed.length < bucket.size())
+				placed = new int[bucket.size()];
+			
+			int seed = 1;
+			while (!tryPlace(bucket, seed, keys, placed)) {
+				if (++seed == MAX_SEED)
+					return false;
+			}
+			
+			for (int i = 0; i < bucket.size(); i++) {
+				keys[placed[i]] = bucket.get(i);
+				values[placed[i]] = map.get(bucket.get(i));
+			}
+			seeds[b] = seed;
+		}
+		
+		return true;
+	}
+	
+	private static boolean tryPlace(List<String> bucket, int seed, String[] keys, int[] placed) {
+		for (int i = 0; i < bucket.size(); i++) {
+			String name = bucket.get(i);
+			int slot = hash(name, 0, name.length(), seed) & (keys.length - 1);
+			
+			if (keys[slot] != null)
+				return false;
+			for (int j = 0; j < i; j++) {
+				if (placed[j] == slot)
+					return false;
+			}
+			placed[i] = slot;
+		}
+		
+		return true;
+	}
+	
+	private static int hash(CharSequence str, int start, int end, int seed) {
+		int h = 0x811C9DC5 ^ (seed * 0x9E3779B9);
+		for (int i = start; i < end; i++) {
+			h ^= str.charAt(i);
+			h *= 0x01000193;
+		}
+		
+		//final avalanche, the low bits select the bucket and the slot
+		h ^= h >>> 16;
+		h *= 0x85EBCA6B;
+		h ^= h >>> 13;
+		h *= 0xC2B2AE35;
+		h ^= h >>> 16;
+		return h;
+	}
+	
+	private static int tableSize(int n) {
+		int size = 1;
+		while (size < n)
+			size <<= 1;
+		
+		return size;
+	}
+}
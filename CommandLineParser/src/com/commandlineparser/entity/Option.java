@@ -1,11 +1,18 @@
 package com.commandlineparser.entity;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Describes a single command-line option
+ * <p>
+ * An option is frozen once it is added to an {@link Options}: the compiled {@link ParsePlan}, the cached help and
+ * the cached patterns rely on its definition, so its setters then throw an <code>IllegalStateException</code>. A
+ * clone of the option can still be changed.
  * 
  * @author Richard
  * @Date 2017-12-01 18:09:15
@@ -25,9 +32,17 @@ public class Option implements Cloneable, Serializable {
 	private int numberOfArgs = UNINITIALIZED;
 	
 	private Class<?> type = String.class;
-	private List<String> values = new ArrayList<>();
+	/** no value for the definition of an option, the values of a parsed option are held by its CommandLine */
+	private List<String> values = Collections.emptyList();
 	private char valueSeparator;
 	
+	/** <tt>true</tt> once the option has been added to an {@link Options} */
+	private boolean frozen;
+	
+	/** the snapshot the argument name, the description and the type are read from on first use, then <code>null</code> */
+	private transient volatile SchemaSnapshot snapshot;
+	private transient int snapshotId;
+	
 	private Option(final Builder builder) {
 		this.argName = builder.argName;
 		this.description = builder.description;
@@ -58,6 +73,52 @@ public class Option implements Cloneable, Serializable {
 		this.description = description;
 	}
 	
+	/**
+	 * Creates an option loaded from a snapshot, its argument name, description and type are decoded when they are
+	 * first used.
+	 */
+	Option(String opt, String longOpt, int numberOfArgs, boolean required, boolean optionalArg, char valueSeparator, 
+			SchemaSnapshot snapshot, int snapshotId) {
+		this.opt = opt;
+		this.longOpt = longOpt;
+		this.numberOfArgs = numberOfArgs;
+		this.required = required;
+		this.optionalArg = optionalArg;
+		this.valueSeparator = valueSeparator;
+		this.type = null;
+		this.snapshotId = snapshotId;
+		this.snapshot = snapshot;
+	}
+	
+	/**
+	 * Decodes the metadata of an option loaded from a snapshot.
+	 */
+	private void load() {
+		if (snapshot != null) {
+			synchronized (this) {
+				SchemaSnapshot source = snapshot;
+				if (source != null) {
+					argName = source.argName(snapshotId);
+					description = source.description(snapshotId);
+					type = source.type(snapshotId);
+					snapshot = null;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Makes the definition of this option read-only.
+	 */
+	void freeze() {
+		frozen = true;
+	}
+	
+	private void checkNotFrozen() {
+		if (frozen)
+			throw new IllegalStateException("The option " + getKey() + " has been added to an Options and cannot be changed");
+	}
+	
 	public int getId() {
 		return getKey().charAt(0);
 	}
@@ -71,10 +132,13 @@ public class Option implements Cloneable, Serializable {
 	}
 	
 	public Object getType() {
+		load();
 		return type;
 	}
 	
 	public void setType(Class<?> type) {
+		checkNotFrozen();
+		load();
 		this.type = type;
 	}
 	
@@ -83,6 +147,7 @@ public class Option implements Cloneable, Serializable {
 	}
 
 	public void setLongOpt(String longOpt) {
+		checkNotFrozen();
 		this.longOpt = longOpt;
 	}
 
@@ -91,6 +156,7 @@ public class Option implements Cloneable, Serializable {
 	}
 
 	public void setRequired(boolean required) {
+		checkNotFrozen();
 		this.required = required;
 	}
 
@@ -115,6 +181,7 @@ public class Option implements Cloneable, Serializable {
 	}
 
 	public void setValueSeparator(char valueSeparator) {
+		checkNotFrozen();
 		this.valueSeparator = valueSeparator;
 	}
 
@@ -123,6 +190,7 @@ public class Option implements Cloneable, Serializable {
 	}
 
 	public void setNumberOfArgs(int numberOfArgs) {
+		checkNotFrozen();
 		this.numberOfArgs = numberOfArgs;
 	}
 
@@ -131,62 +199,37 @@ public class Option implements Cloneable, Serializable {
 	}
 
 	public String getArgName() {
+		load();
 		return argName;
 	}
 
 	public void setArgName(String argName) {
+		checkNotFrozen();
+		load();
 		this.argName = argName;
 	}
 	
 	public boolean hasArgName() {
+		load();
 		return argName != null && argName.length() > 0; 
 	}
 
 	public String getDescription() {
+		load();
 		return description;
 	}
 
 	public void setDescription(String description) {
+		checkNotFrozen();
+		load();
 		this.description = description;
 	}
 
 	public void setOptionalArg(boolean optionalArg) {
+		checkNotFrozen();
 		this.optionalArg = optionalArg;
 	}
 	
-	void addValueForProcessing(String value) {
-		if (numberOfArgs == UNINITIALIZED) {
-			throw new RuntimeException("NO_ARGS_ALLOWED");
-		}
-		
-		processValue(value);
-	}
-	
-	private void processValue(String value) {
-		if (hasValueSeparator()) {
-			char separator = getValueSeparator();
-			int index = value.indexOf(separator);
-			
-			while (index != -1) {
-				if (values.size() == numberOfArgs - 1) 
-					break;
-				add(value.substring(0, index));
-				
-				value = value.substring(index + 1);
-				index = value.indexOf(separator);
-			}
-			
-			add(value);
-		}
-	}
-	
-	private void add(String value) {
-		if (!acceptsArg())
-			throw new RuntimeException("Cannot add value, list full.");
-		
-		values.add(value);
-	}
-	
 	public String getValue() {
 		return hasNoValues() ? null : values.get(0);
 	}
@@ -211,6 +254,7 @@ public class Option implements Cloneable, Serializable {
 	
 	@Override
 	public String toString() {
+		load();
 		StringBuilder sb = new StringBuilder().append("[ option: ");
 		sb.append(opt);
 		if (longOpt != null) {
@@ -263,11 +307,24 @@ public class Option implements Cloneable, Serializable {
 		return result;
 	}
 	
+	/**
+	 * Decodes the metadata of an option loaded from a snapshot before it is written.
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		load();
+		out.defaultWriteObject();
+	}
+	
+	/**
+	 * @return a copy of the option, which can be changed even if this option is frozen
+	 */
 	@Override
 	public Object clone() {
+		load();
 		try {
 			Option option = (Option) super.clone();
 			option.values = new ArrayList<>(values);
+			option.frozen = false;
 			
 			return option;
 		} catch (CloneNotSupportedException cnse) {
@@ -275,22 +332,49 @@ public class Option implements Cloneable, Serializable {
 		}
 	}
 	
-	void clearValues() {
-		values.clear();
+	/**
+	 * @return a copy of the option holding <code>values</code>, which are not copied
+	 */
+	Option withValues(List<String> values) {
+		load();
+		try {
+			Option option = (Option) super.clone();
+			option.values = values;
+			
+			return option;
+		} catch (CloneNotSupportedException cnse) {
+			throw new RuntimeException("A CloneNotSupportedException was thrown : " + cnse.getMessage());
+		}
 	}
 	
 	boolean acceptsArg() {
-		return (hasArg() || hasArgs() || hasOptionalArg()) && (numberOfArgs <= 0 || values.size() < numberOfArgs);
+		return acceptsArg(values.size());
+	}
+	
+	/**
+	 * @param valueCount the number of values already given to the option
+	 * @return <tt>true</tt> if the option takes one more value
+	 */
+	boolean acceptsArg(int valueCount) {
+		return (hasArg() || hasArgs() || hasOptionalArg()) && (numberOfArgs <= 0 || valueCount < numberOfArgs);
 	}
 	
 	boolean requiresArg() {
+		return requiresArg(values.size());
+	}
+	
+	/**
+	 * @param valueCount the number of values already given to the option
+	 * @return <tt>true</tt> if the option needs one more value
+	 */
+	boolean requiresArg(int valueCount) {
 		if (optionalArg) {
 			return false;
 		}
 		if (numberOfArgs == UNLIMITED_VALUES) {
-			return values.isEmpty();
+			return valueCount == 0;
 		}
-		return acceptsArg();
+		return acceptsArg(valueCount);
 	}
 	
 	public static Builder builder() {
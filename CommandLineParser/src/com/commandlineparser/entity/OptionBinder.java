@@ -0,0 +1,421 @@
+package com.commandlineparser.entity;
+
+import java.io.File;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.commandlineparser.annotation.CommandLineArguments;
+import com.commandlineparser.annotation.CommandLineOption;
+import com.commandlineparser.annotation.CommandLineOptions;
+import com.commandlineparser.exception.ParseException;
+
+/**
+ * Copies the options of a parsed {@link CommandLine} into the fields of a new object.
+ * <p>
+ * The fields are declared with {@link CommandLineOption} and {@link CommandLineArguments}, as for the generated
+ * parsers, and have the same types: <code>boolean</code> for a flag, <code>String[]</code> or
+ * <code>List&lt;String&gt;</code> for any number of values, and <code>String</code>, numbers or <code>File</code>
+ * for a single value. The fields of a class are read once: the setters, with the conversion of the value folded in,
+ * are kept as method handles in a plan cached per class. The options of the bindings are resolved once per
+ * {@link ParsePlan} into {@link OptionHandle}s, and binding a command line parsed against that plan reads the values
+ * by option id, without looking the options up by name.
+ */
+public final class OptionBinder {
+
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+	
+	/** the setter signature every binding is adapted to: (target, value) */
+	private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+	
+	private static final ClassValue<Plan> PLANS = new ClassValue<Plan>() {
+		@Override
+		protected Plan computeValue(Class<?> type) {
+			return new Plan(type);
+		}
+	};
+	
+	private OptionBinder() {
+	}
+	
+	/**
+	 * Creates an instance of <code>type</code> holding the options of <code>cmd</code>.
+	 *
+	 * @param cmd the parsed command line
+	 * @param type the class declaring the options
+	 * @return the new instance
+	 * @throws ParseException if a value cannot be converted to the type of its field
+	 * @throws IllegalArgumentException if the class cannot be bound
+	 */
+	public static <T> T bind(CommandLine cmd, Class<T> type) throws ParseException {
+		return type.cast(PLANS.get(type).bind(cmd));
+	}
+	
+	/**
+	 * Creates the options declared by the fields of <code>type</code>.
+	 *
+	 * @param type the class declaring the options
+	 * @return new options
+	 * @throws IllegalArgumentException if the class cannot be bound
+	 */
+	public static Options createOptions(Class<?> type) {
+		return PLANS.get(type).createOptions();
+	}
+	
+	/**
+	 * The bindings of a class, read once from its annotations.
+	 */
+	private static final class Plan {
+		
+		private final Class<?> type;
+		private final MethodHandle constructor;
+		
+		/** the bindings in the order of the fields */
+		private final Binding[] bindings;
+		
+		/** key: option key, value: the binding of the option */
+		private final Map<String, Binding> byKey = new HashMap<>();
+		
+		/** the setter of the field receiving the arguments, <code>null</code> if there is none */
+		private final MethodHandle arguments;
+		private final boolean argumentsArray;
+		
+		private final String[] requiredGroups;
+		
+		/** the handles of the bindings for the parse plan bound last */
+		private volatile Handles handles;
+		
+		Plan(Class<?> type) {
+			this.type = type;
+			CommandLineOptions spec = type.getAnnotation(CommandLineOptions.class);
+			this.requiredGroups = spec != null ? spec.requiredGroups() : new String[0];
+			
+			try {
+				Constructor<?> noArgs = type.getDeclaredConstructor();
+				noArgs.setAccessible(true);
+				this.constructor = LOOKUP.unreflectConstructor(noArgs).asType(MethodType.methodType(Object.class));
+				
+				List<Binding> list = new ArrayList<>();
+				MethodHandle argumentsSetter = null;
+				boolean array = false;
+				for (Field field : type.getDeclaredFields()) {
+					CommandLineOption option = field.getAnnotation(CommandLineOption.class);
+					boolean isArguments = field.isAnnotationPresent(CommandLineArguments.class);
+					if (option == null && !isArguments)
+						continue;
+					
+					if (Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers()))
+						throw new IllegalArgumentException("The field " + field.getName() + " must be neither static nor final");
+					field.setAccessible(true);
+					MethodHandle setter = LOOKUP.unreflectSetter(field);
+					
+					Binding.Kind kind = Binding.kindOf(field.getType());
+					if (isArguments) {
+						if (kind != Binding.Kind.ARRAY && kind != Binding.Kind.LIST)
+							throw new IllegalArgumentException("The arguments field " + field.getName() + " must be a String[] or a List<String>");
+						argumentsSetter = setter.asType(SETTER);
+						array = kind == Binding.Kind.ARRAY;
+						continue;
+					}
+					if (kind == null)
+						throw new IllegalArgumentException("Unsupported option type " + field.getType().getName() + " of " + field.getName());
+					
+					Binding binding = new Binding(list.size(), option, kind, adapt(setter, kind));
+					if (byKey.put(binding.getKey(), binding) != null)
+						throw new IllegalArgumentException("Duplicate option " + binding.getKey());
+					list.add(binding);
+				}
+				
+				this.bindings = list.toArray(new Binding[list.size()]);
+				this.arguments = argumentsSetter;
+				this.argumentsArray = array;
+			} catch (NoSuchMethodException e) {
+				throw new IllegalArgumentException(type.getName() + " needs a constructor without parameters", e);
+			} catch (IllegalAccessException e) {
+				throw new IllegalArgumentException("Unable to access the fields of " + type.getName(), e);
+			}
+		}
+		
+		/**
+		 * Folds the conversion of the value into the setter of a field.
+		 */
+		private static MethodHandle adapt(MethodHandle setter, Binding.Kind kind) throws IllegalAccessException {
+			try {
+				switch (kind) {
+				case FLAG:
+					//the flag is set to true, the value is ignored
+					return MethodHandles.dropArguments(MethodHandles.insertArguments(setter.asType(
+							MethodType.methodType(void.class, Object.class, boolean.class)), 1, true), 1, Object.class);
+				case INT:
+					return convert(setter, LOOKUP.findStatic(Integer.class, "parseInt", MethodType.methodType(int.class, String.class)));
+				case LONG:
+					return convert(setter, LOOKUP.findStatic(Long.class, "parseLong", MethodType.methodType(long.class, String.class)));
+				case DOUBLE:
+					return convert(setter, LOOKUP.findStatic(Double.class, "parseDouble", MethodType.methodType(double.class, String.class)));
+				case FILE:
+					return convert(setter, LOOKUP.findConstructor(File.class, MethodType.methodType(void.class, String.class)));
+				default:
+					return setter.asType(SETTER);
+				}
+			} catch (NoSuchMethodException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+		
+		private static MethodHandle convert(MethodHandle setter, MethodHandle converter) {
+			MethodHandle target = setter.asType(MethodType.methodType(void.class, Object.class, converter.type().returnType()));
+			
+			return MethodHandles.filterArguments(target, 1, converter).asType(SETTER);
+		}
+		
+		Object bind(CommandLine cmd) throws ParseException {
+			Object target;
+			try {
+				target = constructor.invokeExact();
+			} catch (Throwable e) {
+				throw rethrow(e);
+			}
+			
+			ParsePlan parsePlan = cmd.getPlan();
+			if (parsePlan != null)
+				bindValues(cmd, handles(parsePlan), target);
+			else
+				bindOccurrences(cmd, target);
+			
+			if (arguments != null) {
+				List<String> args = cmd.getArgList();
+				Object value = argumentsArray ? args.toArray(new String[args.size()]) : new ArrayList<>(args);
+				try {
+					arguments.invokeExact(target, value);
+				} catch (Throwable e) {
+					throw rethrow(e);
+				}
+			}
+			
+			return target;
+		}
+		
+		/**
+		 * @return the handle of the option of each binding in <code>parsePlan</code>, <code>null</code> for an option
+		 *     the plan does not define
+		 */
+		private OptionHandle[] handles(ParsePlan parsePlan) {
+			Handles result = handles;
+			if (result == null || result.plan != parsePlan) {
+				OptionHandle[] array = new OptionHandle[bindings.length];
+				for (Binding binding : bindings) {
+					String key = binding.getKey();
+					if (parsePlan.getShortOption(key, 0, key.length()) != null)
+						array[binding.index] = parsePlan.handle(key);
+				}
+				
+				result = new Handles(parsePlan, array);
+				handles = result;
+			}
+			
+			return result.handles;
+		}
+		
+		/**
+		 * Sets the fields from the values of a parsed command line, read by option id.
+		 */
+		private void bindValues(CommandLine cmd, OptionHandle[] optionHandles, Object target) throws ParseException {
+			for (Binding binding : bindings) {
+				OptionHandle handle = optionHandles[binding.index];
+				if (handle == null || !cmd.has(handle))
+					continue;
+				
+				if (binding.kind.isMultiValued()) {
+					List<String> list = cmd.values(handle);
+					if (!list.isEmpty())
+						binding.set(target, binding.kind == Binding.Kind.ARRAY ? list.toArray(new String[list.size()]) : new ArrayList<>(list));
+				} else {
+					//the first value wins, as CommandLine.getOptionValue returns it
+					binding.set(target, cmd.value(handle));
+				}
+			}
+		}
+		
+		/**
+		 * Sets the fields from the options of a command line which was not parsed against a plan.
+		 */
+		private void bindOccurrences(CommandLine cmd, Object target) throws ParseException {
+			boolean[] assigned = new boolean[bindings.length];
+			List<String>[] values = null;
+			for (Iterator<Option> it = cmd.iterator(); it.hasNext(); ) {
+				Option option = it.next();
+				Binding binding = byKey.get(option.getKey());
+				if (binding == null)
+					continue;
+				
+				if (binding.kind.isMultiValued()) {
+					if (values == null)
+						values = newLists(bindings.length);
+					if (values[binding.index] == null)
+						values[binding.index] = new ArrayList<>();
+					values[binding.index].addAll(option.getValuesList());
+				} else if (!assigned[binding.index]) {
+					//the first value wins, as CommandLine.getOptionValue returns it
+					assigned[binding.index] = true;
+					binding.set(target, option.getValue());
+				}
+			}
+			
+			if (values != null) {
+				for (Binding binding : bindings) {
+					List<String> list = values[binding.index];
+					if (list != null && !list.isEmpty())
+						binding.set(target, binding.kind == Binding.Kind.ARRAY ? list.toArray(new String[list.size()]) : list);
+				}
+			}
+		}
+		
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		private static List<String>[] newLists(int size) {
+			return new List[size];
+		}
+		
+		Options createOptions() {
+			Options options = new Options();
+			Map<String, OptionGroup> groups = new LinkedHashMap<>();
+			for (Binding binding : bindings) {
+				Option option = binding.createOption();
+				String group = binding.annotation.group();
+				if (group.isEmpty()) {
+					options.addOption(option);
+					continue;
+				}
+				
+				if (!groups.containsKey(group))
+					groups.put(group, new OptionGroup());
+				groups.get(group).addOption(option);
+			}
+			
+			for (Map.Entry<String, OptionGroup> entry : groups.entrySet()) {
+				entry.getValue().setRequired(Arrays.asList(requiredGroups).contains(entry.getKey()));
+				options.addOptionGroup(entry.getValue());
+			}
+			
+			return options;
+		}
+		
+		@Override
+		public String toString() {
+			return "[ OptionBinder.Plan: " + type.getName() + " :: " + bindings.length + " options ]";
+		}
+	}
+	
+	/**
+	 * The handles of the bindings of a class in a parse plan.
+	 */
+	private static final class Handles {
+		
+		final ParsePlan plan;
+		final OptionHandle[] handles;
+		
+		Handles(ParsePlan plan, OptionHandle[] handles) {
+			this.plan = plan;
+			this.handles = handles;
+		}
+	}
+	
+	/**
+	 * The setter of a field with the conversion of its value.
+	 */
+	private static final class Binding {
+		
+		enum Kind {
+			FLAG, STRING, INT, LONG, DOUBLE, FILE, ARRAY, LIST;
+			
+			boolean isMultiValued() {
+				return this == ARRAY || this == LIST;
+			}
+		}
+		
+		final int index;
+		final CommandLineOption annotation;
+		final Kind kind;
+		
+		/** (target, value) with the value converted to the type of the field */
+		final MethodHandle setter;
+		
+		Binding(int index, CommandLineOption annotation, Kind kind, MethodHandle setter) {
+			this.index = index;
+			this.annotation = annotation;
+			this.kind = kind;
+			this.setter = setter;
+			
+			if (annotation.opt().isEmpty() && annotation.longOpt().isEmpty())
+				throw new IllegalArgumentException("An option needs a short or a long name");
+		}
+		
+		String getKey() {
+			return annotation.opt().isEmpty() ? annotation.longOpt() : annotation.opt();
+		}
+		
+		void set(Object target, Object value) throws ParseException {
+			try {
+				setter.invokeExact(target, value);
+			} catch (NumberFormatException e) {
+				throw new ParseException(e.getMessage());
+			} catch (Throwable e) {
+				throw rethrow(e);
+			}
+		}
+		
+		Option createOption() {
+			Option.Builder builder = Option.builder(annotation.opt().isEmpty() ? null : annotation.opt());
+			if (!annotation.longOpt().isEmpty())
+				builder.longOpt(annotation.longOpt());
+			if (!annotation.description().isEmpty())
+				builder.desc(annotation.description());
+			if (kind.isMultiValued())
+				builder.numberOfArgs(Option.UNLIMITED_VALUES);
+			else if (kind != Kind.FLAG)
+				builder.hasArg();
+			
+			//in a group the option is required through the group
+			return builder.required(annotation.required() && annotation.group().isEmpty()).build();
+		}
+		
+		static Kind kindOf(Class<?> type) {
+			if (type == boolean.class || type == Boolean.class)
+				return Kind.FLAG;
+			if (type == String.class)
+				return Kind.STRING;
+			if (type == int.class || type == Integer.class)
+				return Kind.INT;
+			if (type == long.class || type == Long.class)
+				return Kind.LONG;
+			if (type == double.class || type == Double.class)
+				return Kind.DOUBLE;
+			if (type == File.class)
+				return Kind.FILE;
+			if (type == String[].class)
+				return Kind.ARRAY;
+			if (type == List.class)
+				return Kind.LIST;
+			
+			return null;
+		}
+	}
+	
+	private static RuntimeException rethrow(Throwable e) {
+		if (e instanceof RuntimeException)
+			throw (RuntimeException) e;
+		if (e instanceof Error)
+			throw (Error) e;
+		
+		throw new IllegalStateException(e);
+	}
+}
@@ -10,6 +10,9 @@ import com.commandlineparser.exception.AlreadySelectedException;
 
 /**
  * A group of mutually exclusive options
+ * <p>
+ * As its options, a group is frozen once it is added to an {@link Options}: no option can be added to it and it
+ * cannot be made required or optional any more.
  * @author Richard
  * @Date 2017-12-01 18:41:29
  */
@@ -23,8 +26,11 @@ public class OptionGroup implements Serializable {
 	private String selected;
 	/**specify whether this group is required */
 	private boolean required;
+	/** <tt>true</tt> once the group has been added to an {@link Options} */
+	private boolean frozen;
 	
 	public OptionGroup addOption(Option option) {
+		checkNotFrozen();
 		//key: option name
 		//value: the option
 		optionMap.put(option.getKey(), option);
@@ -32,6 +38,25 @@ public class OptionGroup implements Serializable {
 		return this;
 	}
 	
+	/**
+	 * Replaces the option of the same key by <code>option</code>, at the same position.
+	 */
+	void replaceOption(Option option) {
+		optionMap.put(option.getKey(), option);
+	}
+	
+	/**
+	 * Makes the group read-only.
+	 */
+	void freeze() {
+		frozen = true;
+	}
+	
+	private void checkNotFrozen() {
+		if (frozen)
+			throw new IllegalStateException("The group " + this + " has been added to an Options and cannot be changed");
+	}
+	
 	public Collection<String> getNames() {
 		return optionMap.keySet();
 	}
@@ -40,6 +65,11 @@ public class OptionGroup implements Serializable {
 		return optionMap.values();
 	}
 	
+	/**
+	 * @deprecated the parser keeps the selected option of each group in its parse state and never calls this
+	 *     method, see {@link ParseState#getSelected(OptionGroup)}
+	 */
+	@Deprecated
 	public void setSelected(Option option) throws AlreadySelectedException {
 		if (option == null) {
 			selected = null;
@@ -49,15 +79,21 @@ public class OptionGroup implements Serializable {
 		if (selected == null || selected.equals(option.getKey()))
 			selected = option.getKey();
 		else {
-			throw new AlreadySelectedException(this, option);
+			throw new AlreadySelectedException(this, option, selected);
 		}
 	}
 	
+	/**
+	 * @deprecated the parser does not select the options of the group here, see 
+	 *     {@link ParseState#getSelected(OptionGroup)}
+	 */
+	@Deprecated
 	public String getSelected() {
 		return selected;
 	}
 	
 	public void setRequired(boolean required) {
+		checkNotFrozen();
 		this.required = required;
 	}
 	
@@ -0,0 +1,41 @@
+package com.commandlineparser.entity;
+
+/**
+ * A compiled reference to an option of a {@link ParsePlan}, obtained once with {@link Options#handle(String)} or
+ * {@link ParsePlan#handle(String)}.
+ * <p>
+ * A command line parsed against the same plan answers {@link CommandLine#has(OptionHandle)},
+ * {@link CommandLine#value(OptionHandle)} and {@link CommandLine#values(OptionHandle)} by the id of the handle, without
+ * resolving the name of the option again. Any other command line falls back to the key of the option.
+ */
+public final class OptionHandle {
+
+	final ParsePlan plan;
+	
+	/** the position of the option in the plan */
+	final int id;
+	
+	private final Option option;
+	
+	OptionHandle(ParsePlan plan, int id, Option option) {
+		this.plan = plan;
+		this.id = id;
+		this.option = option;
+	}
+	
+	/**
+	 * @return the option of the plan, not holding any value
+	 */
+	public Option getOption() {
+		return option;
+	}
+	
+	public String getKey() {
+		return option.getKey();
+	}
+	
+	@Override
+	public String toString() {
+		return "[ OptionHandle: " + option.getKey() + " :: " + id + " ]";
+	}
+}
@@ -11,6 +11,9 @@ import java.util.Map;
 
 /**
  * Options represents a collection of {@link Option} objects, which describe the possible options for a command-line.
+ * <p>
+ * The options and the groups added are frozen, see {@link Option}: the definitions only change by adding options,
+ * which compiles a new {@link ParsePlan}.
  * 
  * @author Richard
  * @Date 2017-12-01 18:10:19
@@ -20,21 +23,33 @@ public class Options implements Serializable {
 	private static final long serialVersionUID = -4521328383296540914L;
 	
 	/** a map of the options with character key*/
-	private final Map<String, Option> shortOpts = new LinkedHashMap<>();
-	private final Map<String, Option> longOpts = new LinkedHashMap<>();
-	private final Map<String, OptionGroup> optionGroups = new LinkedHashMap<>();
-	private final List<Object> requiredOpts = new ArrayList<>();
+	final Map<String, Option> shortOpts = new LinkedHashMap<>();
+	final Map<String, Option> longOpts = new LinkedHashMap<>();
+	final Map<String, OptionGroup> optionGroups = new LinkedHashMap<>();
+	final List<Object> requiredOpts = new ArrayList<>();
+	
+	/** the compiled form of these options, dropped whenever an option or a group is added */
+	private transient volatile ParsePlan plan;
+	/** the number of changes made to these options, an option or a group added */
+	private transient volatile int version;
 	
 	public Options addOptionGroup(OptionGroup group) {
+		changed();
 		if (group.isRequired())
 			requiredOpts.add(group);
 		
-		for (Option option : group.getOptions()) {
-			option.setRequired(false);
+		for (Option option : new ArrayList<>(group.getOptions())) {
+			//an option of a group is only required through its group, the option given is left untouched
+			if (option.isRequired()) {
+				option = (Option) option.clone();
+				option.setRequired(false);
+				group.replaceOption(option);
+			}
 			addOption(option);
 			
 			optionGroups.put(option.getKey(), group);
 		}
+		group.freeze();
 		
 		return this;
 	}
@@ -71,6 +86,8 @@ public class Options implements Serializable {
 	
 	public Options addOption(Option opt) {
 		String key = opt.getKey();
+		changed();
+		opt.freeze();
 		
 		if (opt.hasLongOpt())
 			longOpts.put(opt.getLongOpt(), opt);
@@ -97,6 +114,7 @@ public class Options implements Serializable {
 		return Collections.unmodifiableList(requiredOpts);
 	}
 	
+	//the lookups below read the maps, so that they do not compile a new plan after each option added
 	public Option getOption(String opt) {
 		opt = Util.stripLeadingHyphens(opt);
 		
@@ -106,6 +124,13 @@ public class Options implements Serializable {
 		return longOpts.get(opt);
 	}
 	
+	/**
+	 * Returns the long names matching <code>opt</code>: the name itself if it is a long option, otherwise every
+	 * long option starting with it.
+	 * 
+	 * @param opt the partial name of the option
+	 * @return the matching long names
+	 */
 	public List<String> getMatchingOptions(String opt) {
 		opt = Util.stripLeadingHyphens(opt);
 		List<String> matchingOpts = new ArrayList<>();
@@ -115,7 +140,7 @@ public class Options implements Serializable {
 		
 		for (String longOpt : longOpts.keySet()) {
 			if (longOpt.startsWith(opt))
-				matchingOpts.add(opt);
+				matchingOpts.add(longOpt);
 		}
 		
 		return matchingOpts;
@@ -139,10 +164,49 @@ public class Options implements Serializable {
 		return shortOpts.containsKey(opt);
 	}
 	
+	/**
+	 * @see ParsePlan#handle(String)
+	 */
+	public OptionHandle handle(String opt) {
+		return compile().handle(opt);
+	}
+	
 	public OptionGroup getOptionGroup(Option opt) {
 		return optionGroups.get(opt.getKey());
 	}
 	
+	/**
+	 * Returns the immutable {@link ParsePlan} of these options. The plan is built on the first call and reused 
+	 * until an option or a group is added.
+	 * 
+	 * @return the compiled options
+	 */
+	public ParsePlan compile() {
+		ParsePlan result = plan;
+		if (result == null) {
+			result = new ParsePlan(this);
+			plan = result;
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Drops the compiled plan and moves to the next version, before an option or a group is added.
+	 */
+	void changed() {
+		plan = null;
+		version++;
+	}
+	
+	/**
+	 * Returns the version of these options, which changes whenever an option or a group is added. The options added
+	 * are frozen, so the same version always describes the same definitions.
+	 */
+	int getVersion() {
+		return version;
+	}
+	
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
@@ -0,0 +1,198 @@
+package com.commandlineparser.entity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.commandlineparser.exception.ParseException;
+
+/**
+ * The state of a single parse. A context is created for each call of {@link DefaultParser#parse} and is
+ * never shared between threads, this keeps the {@link ParsePlan} and the {@link Options} untouched.
+ * <p>
+ * The context materializes nothing: the options found and their values are pushed to a {@link ParseListener}.
+ */
+final class ParseContext {
+
+	final ParsePlan plan;
+	final ParseListener listener;
+	
+	/** if <tt>true</tt>, an unrecognized token stops the parsing */
+	final boolean stopAtNonOption;
+	
+	/** The required options and groups expected to be found when parsing the command line */
+	final List<Object> expectedOpts;
+	
+	/** The position of the token being handled */
+	int index = -1;
+	
+	/** The key of the option selected in each group, indexed as {@link ParsePlan#getOptionGroups()} */
+	private final String[] selected;
+	
+	/** Whether each option of the plan has been found, indexed as {@link ParsePlan#indexOf(Option)} */
+	private final boolean[] found;
+	
+	/** The last option parsed, still taking values */
+	Option currentOption;
+	
+	/** The number of values given to the current option */
+	private int valueCount;
+	
+	/** <tt>false</tt> if the current option has been left out, its values are then dropped */
+	private boolean reported;
+	
+	/** A flag indicating if tokens should no longer be analyzed and simply added as argument of command line */
+	boolean skipParsing;
+	
+	/** The token being handled, reused for every argument */
+	final Token token = new Token();
+	
+	/** The outcome of the last long option lookup */
+	final LongOptionTrie.Match match = new LongOptionTrie.Match();
+	
+	ParseContext(ParsePlan plan, boolean stopAtNonOption, ParseListener listener) {
+		this.plan = plan;
+		this.stopAtNonOption = stopAtNonOption;
+		this.listener = listener;
+		this.expectedOpts = new ArrayList<>(plan.getRequiredOptions());
+		this.selected = new String[plan.groupCount()];
+		this.found = new boolean[plan.optionCount()];
+	}
+	
+	/**
+	 * Reports an error to the listener, which either throws it or lets the parsing go on.
+	 * 
+	 * @param error
+	 * @throws ParseException if the listener stops the parsing
+	 */
+	void error(ParseError error) throws ParseException {
+		listener.onError(error);
+	}
+	
+	/**
+	 * Reports the required options and groups which have not been found.
+	 * 
+	 * @throws ParseException if the listener stops the parsing
+	 */
+	void missingOptions() throws ParseException {
+		for (Object missing : expectedOpts) {
+			if (missing instanceof OptionGroup)
+				error(ParseError.missingGroup((OptionGroup) missing));
+			else
+				error(ParseError.missingOption(plan.getOption((String) missing)));
+		}
+	}
+	
+	/**
+	 * Makes <code>option</code> the current option.
+	 * 
+	 * @param option
+	 * @param report <tt>false</tt> if the option is left out, it then takes its values without reporting them
+	 */
+	void startOption(Option option, boolean report) {
+		startOption(option, report, ValueSource.COMMAND_LINE);
+	}
+	
+	/**
+	 * Makes <code>option</code> the current option, its values coming from <code>source</code>.
+	 * 
+	 * @param option
+	 * @param report <tt>false</tt> if the option is left out, it then takes its values without reporting them
+	 * @param source the layer of the option, {@link ValueSource#COMMAND_LINE} for an argument
+	 */
+	void startOption(Option option, boolean report, ValueSource source) {
+		reported = report;
+		if (report) {
+			found[plan.indexOf(option)] = true;
+			if (source == ValueSource.COMMAND_LINE)
+				listener.onOption(option);
+			else
+				listener.onDefault(option, source);
+		}
+		
+		valueCount = 0;
+		currentOption = option.hasArg() ? option : null;
+	}
+	
+	boolean isFound(Option option) {
+		return found[plan.indexOf(option)];
+	}
+	
+	/**
+	 * Gives a value to the current option, splitting it at the value separator of the option.
+	 * 
+	 * @param value
+	 */
+	void addValue(String value) {
+		Option option = currentOption;
+		if (option.hasValueSeparator()) {
+			char separator = option.getValueSeparator();
+			int index = value.indexOf(separator);
+			
+			while (index != -1) {
+				if (valueCount == option.getNumberOfArgs() - 1) 
+					break;
+				add(option, value.substring(0, index));
+				
+				value = value.substring(index + 1);
+				index = value.indexOf(separator);
+			}
+		}
+		
+		add(option, value);
+	}
+	
+	private void add(Option option, String value) {
+		if (!option.acceptsArg(valueCount))
+			throw new RuntimeException("Cannot add value, list full.");
+		
+		valueCount++;
+		if (reported)
+			listener.onValue(option, value);
+	}
+	
+	/**
+	 * @return <tt>true</tt> if the current option takes one more value
+	 */
+	boolean acceptsArg() {
+		return currentOption.acceptsArg(valueCount);
+	}
+	
+	/**
+	 * @return <tt>true</tt> if the current option needs one more value
+	 */
+	boolean requiresArg() {
+		return currentOption.requiresArg(valueCount);
+	}
+	
+	/**
+	 * Marks <code>option</code> as the selected option of <code>group</code> for this parse.
+	 *
+	 * @param group
+	 * @param option
+	 * @return <tt>false</tt> if another option of the group has been selected and the listener lets the parsing go on
+	 * @throws ParseException if another option of the group has been selected
+	 */
+	boolean select(OptionGroup group, Option option) throws ParseException {
+		int pos = plan.indexOf(group);
+		String current = selected[pos];
+		
+		if (current != null && !current.equals(option.getKey())) {
+			error(ParseError.alreadySelected(index, group, option, current));
+			return false;
+		}
+		selected[pos] = option.getKey();
+		return true;
+	}
+	
+	String getSelected(OptionGroup group) {
+		return selected[plan.indexOf(group)];
+	}
+	
+	/**
+	 * @return a snapshot of the state between two tokens
+	 */
+	ParseState state() {
+		return new ParseState(plan, index + 1, currentOption, currentOption != null && requiresArg(), skipParsing,
+				selected.clone(), new ArrayList<>(expectedOpts));
+	}
+}
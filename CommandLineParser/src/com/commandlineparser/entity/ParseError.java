@@ -0,0 +1,196 @@
+package com.commandlineparser.entity;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import com.commandlineparser.exception.AlreadySelectedException;
+import com.commandlineparser.exception.AmbiguousOptionException;
+import com.commandlineparser.exception.MissingArgumentException;
+import com.commandlineparser.exception.MissingOptionException;
+import com.commandlineparser.exception.ParseException;
+import com.commandlineparser.exception.UnrecognizedOptionException;
+
+/**
+ * A problem found while parsing a command line. This is the structured form of the {@link ParseException}s thrown by
+ * the parser: {@link DefaultParser#tryParse} collects errors instead of throwing, and the message of an error is only
+ * built when it is asked for.
+ */
+public final class ParseError {
+
+	public enum Kind {
+		/** a token looks like an option but matches none, see {@link UnrecognizedOptionException} */
+		UNRECOGNIZED_OPTION,
+		/** a default value was given for an option which is not defined */
+		UNDEFINED_DEFAULT,
+		/** a partial long name matches several options, see {@link AmbiguousOptionException} */
+		AMBIGUOUS_OPTION,
+		/** an option requiring an argument has none, see {@link MissingArgumentException} */
+		MISSING_ARGUMENT,
+		/** a required option or group is absent, see {@link MissingOptionException} */
+		MISSING_OPTION,
+		/** a second option of a group was specified, see {@link AlreadySelectedException} */
+		ALREADY_SELECTED,
+		/** an argument <code>@file</code> names a response file which cannot be read or which includes itself */
+		INVALID_RESPONSE_FILE
+	}
+	
+	private final Kind kind;
+	private final int index;
+	private final String token;
+	private final Option option;
+	private final OptionGroup group;
+	private final Collection<String> candidates;
+	
+	private String message;
+	
+	private ParseError(Kind kind, int index, String token, Option option, OptionGroup group, Collection<String> candidates) {
+		this.kind = kind;
+		this.index = index;
+		this.token = token;
+		this.option = option;
+		this.group = group;
+		this.candidates = candidates;
+	}
+	
+	static ParseError unrecognized(int index, String token) {
+		return new ParseError(Kind.UNRECOGNIZED_OPTION, index, token, null, null, Collections.<String>emptyList());
+	}
+	
+	static ParseError undefinedDefault(String name) {
+		return new ParseError(Kind.UNDEFINED_DEFAULT, -1, name, null, null, Collections.<String>emptyList());
+	}
+	
+	static ParseError ambiguous(int index, String token, Collection<String> candidates) {
+		return new ParseError(Kind.AMBIGUOUS_OPTION, index, token, null, null, candidates);
+	}
+	
+	static ParseError missingArgument(int index, Option option) {
+		return new ParseError(Kind.MISSING_ARGUMENT, index, null, option, null, Collections.<String>emptyList());
+	}
+	
+	static ParseError missingOption(Option option) {
+		return new ParseError(Kind.MISSING_OPTION, -1, null, option, null, Collections.<String>emptyList());
+	}
+	
+	static ParseError missingGroup(OptionGroup group) {
+		return new ParseError(Kind.MISSING_OPTION, -1, null, null, group, Collections.<String>emptyList());
+	}
+	
+	static ParseError invalidResponseFile(int index, String token, String reason) {
+		return new ParseError(Kind.INVALID_RESPONSE_FILE, index, token, null, null, Collections.singletonList(reason));
+	}
+	
+	static ParseError alreadySelected(int index, OptionGroup group, Option option, String selected) {
+		return new ParseError(Kind.ALREADY_SELECTED, index, null, option, group, Collections.singletonList(selected));
+	}
+	
+	public Kind getKind() {
+		return kind;
+	}
+	
+	/**
+	 * @return the position of the offending argument, -1 if the error is not tied to an argument
+	 */
+	public int getIndex() {
+		return index;
+	}
+	
+	/**
+	 * @return the offending token, or the name of the undefined default option
+	 */
+	public String getToken() {
+		return token;
+	}
+	
+	/**
+	 * @return the option concerned by the error, if any
+	 */
+	public Option getOption() {
+		return option;
+	}
+	
+	/**
+	 * @return the group concerned by the error, if any
+	 */
+	public OptionGroup getOptionGroup() {
+		return group;
+	}
+	
+	/**
+	 * @return the long names matching an ambiguous token, the key of the option already selected in the group, or
+	 *     the reason why a response file is invalid
+	 */
+	public Collection<String> getCandidates() {
+		return candidates;
+	}
+	
+	public String getMessage() {
+		if (message == null)
+			message = createMessage();
+		
+		return message;
+	}
+	
+	/**
+	 * Builds the message of {@link #toException()} without creating the exception.
+	 */
+	private String createMessage() {
+		switch (kind) {
+		case UNRECOGNIZED_OPTION:
+			return UnrecognizedOptionException.createMessage(token);
+		case UNDEFINED_DEFAULT:
+			return "Default option wasn't defined";
+		case AMBIGUOUS_OPTION:
+			return AmbiguousOptionException.createMessage(token, candidates);
+		case MISSING_ARGUMENT:
+			return MissingArgumentException.createMessage(option.getKey());
+		case MISSING_OPTION:
+			return MissingOptionException.createMessage(Collections.singletonList(getMissing()));
+		case INVALID_RESPONSE_FILE:
+			return "Invalid response file " + token + ": " + candidates.iterator().next();
+		default:
+			return AlreadySelectedException.createMessage(option, candidates.iterator().next());
+		}
+	}
+	
+	/**
+	 * @return the exception the parser throws for this error
+	 */
+	public ParseException toException() {
+		return toException(true);
+	}
+	
+	/**
+	 * @param writableStackTrace if <tt>false</tt>, the exception does not record its stack trace
+	 * @return the exception the parser throws for this error
+	 */
+	public ParseException toException(boolean writableStackTrace) {
+		switch (kind) {
+		case UNRECOGNIZED_OPTION:
+		case UNDEFINED_DEFAULT:
+			return new UnrecognizedOptionException(getMessage(), token, writableStackTrace);
+		case AMBIGUOUS_OPTION:
+			return new AmbiguousOptionException(token, candidates, writableStackTrace);
+		case MISSING_ARGUMENT:
+			return new MissingArgumentException(option, writableStackTrace);
+		case MISSING_OPTION:
+			return new MissingOptionException(Collections.singletonList(getMissing()), writableStackTrace);
+		case INVALID_RESPONSE_FILE:
+			return new ParseException(getMessage(), writableStackTrace);
+		default:
+			return new AlreadySelectedException(group, option, candidates.iterator().next(), writableStackTrace);
+		}
+	}
+	
+	/**
+	 * @return the key of the missing option or the missing group, as listed by {@link MissingOptionException}
+	 */
+	Object getMissing() {
+		return option != null ? option.getKey() : group;
+	}
+	
+	@Override
+	public String toString() {
+		return "[ ParseError: " + kind + " at " + index + " :: " + getMessage() + " ]";
+	}
+}
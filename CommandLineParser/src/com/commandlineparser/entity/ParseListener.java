@@ -0,0 +1,60 @@
+package com.commandlineparser.entity;
+
+import com.commandlineparser.exception.ParseException;
+
+/**
+ * Receives the events of a parse, in the order of the arguments.
+ * <p>
+ * A parser driven by a listener builds no {@link CommandLine}: the options passed to the listener are those of the
+ * {@link ParsePlan}, shared by every parse, and their values are reported by {@link #onValue} instead of being stored
+ * in them. {@link DefaultParser#parse(Options, String[])} is itself a listener building a <code>CommandLine</code>.
+ */
+public interface ParseListener {
+
+	/**
+	 * An option has been found, the values following it until the next event of another kind belong to it.
+	 *
+	 * @param option the option of the plan, which must not be modified
+	 */
+	void onOption(Option option);
+	
+	/**
+	 * An option absent from the command line has been given a default value by <code>source</code>, its values
+	 * follow as for {@link #onOption}. By default the option is reported as any other option.
+	 *
+	 * @param option the option of the plan, which must not be modified
+	 * @param source the layer of the default value
+	 */
+	default void onDefault(Option option, ValueSource source) {
+		onOption(option);
+	}
+	
+	/**
+	 * A value has been given to the option of the last {@link #onOption}. Values are already split at the value
+	 * separator of the option.
+	 *
+	 * @param option the option receiving the value
+	 * @param value
+	 */
+	void onValue(Option option, String value);
+	
+	/**
+	 * An argument which is neither an option nor a value has been found.
+	 *
+	 * @param argument
+	 */
+	void onPositional(String argument);
+	
+	/**
+	 * The "--" argument has been found, the arguments following it are positional.
+	 */
+	void onEndOfOptions();
+	
+	/**
+	 * An error has been found. If the method returns, the parsing goes on with the next argument; throwing stops it.
+	 *
+	 * @param error
+	 * @throws ParseException to stop the parsing, usually {@link ParseError#toException()}
+	 */
+	void onError(ParseError error) throws ParseException;
+}
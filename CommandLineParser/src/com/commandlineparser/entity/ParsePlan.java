@@ -0,0 +1,256 @@
+package com.commandlineparser.entity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An immutable, compiled snapshot of an {@link Options} instance.
+ * <p>
+ * A plan is created once by {@link Options#compile()} and never changes afterwards, so a single plan
+ * can be shared by any number of threads parsing at the same time. All per-parse state lives in a
+ * {@link ParseContext}.
+ */
+public final class ParsePlan {
+
+	/** the options registered under a single ASCII character, indexed by the character */
+	private final Option[] asciiOpts = new Option[128];
+	private final NameIndex shortIndex;
+	private final NameIndex longIndex;
+	private final LongOptionTrie longTrie;
+	
+	/** the keys of the options having a short name in ascending order, with their options */
+	private final String[] shortKeys;
+	private final Option[] shortKeyOpts;
+	
+	/** the position of each distinct option, its index in {@link ParseContext} */
+	private final Map<Option, Integer> optionIndex = new IdentityHashMap<>();
+	
+	/** the handle of each distinct option, indexed by its position */
+	private final OptionHandle[] handles;
+	
+	/** key: option key, value: the group containing the option */
+	private final Map<String, OptionGroup> optionGroups;
+	
+	/** the distinct groups, the position of a group is its index in {@link ParseContext} */
+	private final List<OptionGroup> groups;
+	private final Map<OptionGroup, Integer> groupIndex = new IdentityHashMap<>();
+	
+	private final List<Object> requiredOpts;
+	
+	ParsePlan(Options options) {
+		this.optionGroups = Collections.unmodifiableMap(new LinkedHashMap<>(options.optionGroups));
+		this.requiredOpts = Collections.unmodifiableList(new ArrayList<>(options.requiredOpts));
+		
+		Map<String, Option> others = new LinkedHashMap<>();
+		for (Map.Entry<String, Option> entry : options.shortOpts.entrySet()) {
+			String key = entry.getKey();
+			if (key.length() == 1 && key.charAt(0) < asciiOpts.length)
+				asciiOpts[key.charAt(0)] = entry.getValue();
+			else
+				others.put(key, entry.getValue());
+		}
+		this.shortIndex = new NameIndex(others);
+		this.longIndex = new NameIndex(options.longOpts);
+		this.longTrie = new LongOptionTrie(options.longOpts.values());
+		
+		Map<String, Option> sorted = new TreeMap<>();
+		for (Option option : options.shortOpts.values()) {
+			if (option.getOpt() != null)
+				sorted.put(option.getOpt(), option);
+		}
+		this.shortKeys = sorted.keySet().toArray(new String[sorted.size()]);
+		this.shortKeyOpts = sorted.values().toArray(new Option[sorted.size()]);
+		
+		for (Option option : options.shortOpts.values()) {
+			if (!optionIndex.containsKey(option))
+				optionIndex.put(option, optionIndex.size());
+		}
+		for (Option option : options.longOpts.values()) {
+			if (!optionIndex.containsKey(option))
+				optionIndex.put(option, optionIndex.size());
+		}
+		this.handles = new OptionHandle[optionIndex.size()];
+		for (Map.Entry<Option, Integer> entry : optionIndex.entrySet())
+			handles[entry.getValue()] = new OptionHandle(this, entry.getValue(), entry.getKey());
+		
+		List<OptionGroup> list = new ArrayList<>();
+		for (OptionGroup group : optionGroups.values()) {
+			if (!groupIndex.containsKey(group)) {
+				groupIndex.put(group, list.size());
+				list.add(group);
+			}
+		}
+		this.groups = Collections.unmodifiableList(list);
+	}
+	
+	public Option getOption(String opt) {
+		int start = Util.leadingHyphens(opt);
+		
+		return getOption(opt, start, opt.length());
+	}
+	
+	/**
+	 * Returns the option whose key or long name is held by <code>str</code> between <code>start</code> (inclusive)
+	 * and <code>end</code> (exclusive). Short options are looked up first.
+	 * 
+	 * @return the option or <code>null</code> if there is none
+	 */
+	public Option getOption(CharSequence str, int start, int end) {
+		Option option = getShortOption(str, start, end);
+		
+		return option != null ? option : longIndex.get(str, start, end);
+	}
+	
+	/**
+	 * Returns the option registered with the key held by <code>str</code> between <code>start</code> (inclusive)
+	 * and <code>end</code> (exclusive).
+	 * 
+	 * @return the option or <code>null</code> if there is none
+	 */
+	public Option getShortOption(CharSequence str, int start, int end) {
+		if (end - start == 1) {
+			char ch = str.charAt(start);
+			return ch < asciiOpts.length ? asciiOpts[ch] : shortIndex.get(str, start, end);
+		}
+		
+		return shortIndex.get(str, start, end);
+	}
+	
+	/**
+	 * Returns the option registered with the long name held by <code>str</code> between <code>start</code>
+	 * (inclusive) and <code>end</code> (exclusive).
+	 * 
+	 * @return the option or <code>null</code> if there is none
+	 */
+	public Option getLongOption(CharSequence str, int start, int end) {
+		return longIndex.get(str, start, end);
+	}
+	
+	public Option getOption(char opt) {
+		Option option = opt < asciiOpts.length ? asciiOpts[opt] : shortIndex.get(String.valueOf(opt));
+		
+		return option != null ? option : longIndex.get(String.valueOf(opt));
+	}
+	
+	/**
+	 * Returns the long names matching <code>opt</code>: the name itself if it is a long option, otherwise every
+	 * long option starting with it.
+	 * 
+	 * @param opt the partial name of the option
+	 * @return the matching long names
+	 */
+	public List<String> getMatchingOptions(String opt) {
+		LongOptionTrie.Match match = new LongOptionTrie.Match();
+		longTrie.walk(opt, Util.leadingHyphens(opt), opt.length(), -1, match);
+		
+		return match.getCandidates();
+	}
+	
+	/**
+	 * Adds every option whose key starts with <code>prefix</code>, in the order of the keys.
+	 * 
+	 * @param prefix
+	 * @param options receives the options
+	 */
+	void collectShortOptions(String prefix, List<Option> options) {
+		int pos = Arrays.binarySearch(shortKeys, prefix);
+		if (pos < 0)
+			pos = -pos - 1;
+		
+		for (; pos < shortKeys.length && shortKeys[pos].startsWith(prefix); pos++)
+			options.add(shortKeyOpts[pos]);
+	}
+	
+	/**
+	 * Adds every option whose long name starts with <code>prefix</code>, in the order of the names.
+	 * 
+	 * @param prefix
+	 * @param options receives the options
+	 */
+	void collectLongOptions(String prefix, List<Option> options) {
+		LongOptionTrie.Match match = new LongOptionTrie.Match();
+		longTrie.walk(prefix, 0, prefix.length(), -1, match);
+		match.collectOptions(options);
+	}
+	
+	/**
+	 * Resolves the long name held by <code>str</code> between <code>start</code> and <code>end</code> in a single
+	 * walk of the long option trie.
+	 * 
+	 * @param maxPrefix the maximum length of a registered prefix of the name to look for
+	 * @param match receives the outcome
+	 */
+	void matchLongOption(CharSequence str, int start, int end, int maxPrefix, LongOptionTrie.Match match) {
+		longTrie.walk(str, start, end, maxPrefix, match);
+	}
+	
+	/**
+	 * Returns the handle of the option whose key or long name is <code>opt</code>, to be kept and used with
+	 * command lines parsed against this plan.
+	 * 
+	 * @param opt the name of the option
+	 * @return the handle
+	 * @throws IllegalArgumentException if there is no such option
+	 */
+	public OptionHandle handle(String opt) {
+		Option option = getOption(opt);
+		if (option == null)
+			throw new IllegalArgumentException("No option '" + opt + "'");
+		
+		return handles[indexOf(option)];
+	}
+	
+	public boolean hasOption(String opt) {
+		return getOption(opt) != null;
+	}
+	
+	public boolean hasShortOption(String opt) {
+		return getShortOption(opt, Util.leadingHyphens(opt), opt.length()) != null;
+	}
+	
+	public boolean hasLongOption(String opt) {
+		return getLongOption(opt, Util.leadingHyphens(opt), opt.length()) != null;
+	}
+	
+	public OptionGroup getOptionGroup(Option opt) {
+		return optionGroups.get(opt.getKey());
+	}
+	
+	public List<Object> getRequiredOptions() {
+		return requiredOpts;
+	}
+	
+	public List<OptionGroup> getOptionGroups() {
+		return groups;
+	}
+	
+	int optionCount() {
+		return optionIndex.size();
+	}
+	
+	int indexOf(Option option) {
+		return optionIndex.get(option);
+	}
+	
+	Option optionAt(int id) {
+		return handles[id].getOption();
+	}
+	
+	int groupCount() {
+		return groups.size();
+	}
+	
+	/**
+	 * @return the position of <code>group</code> in this plan, -1 if it is not a group of the plan
+	 */
+	int indexOf(OptionGroup group) {
+		Integer index = groupIndex.get(group);
+		return index != null ? index : -1;
+	}
+}
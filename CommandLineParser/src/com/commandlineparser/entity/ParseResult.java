@@ -0,0 +1,66 @@
+package com.commandlineparser.entity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.commandlineparser.exception.MissingOptionException;
+import com.commandlineparser.exception.ParseException;
+
+/**
+ * The outcome of {@link DefaultParser#tryParse}: the command line built from the valid arguments and every error
+ * found on the way.
+ */
+public final class ParseResult {
+
+	private final CommandLine commandLine;
+	private final List<ParseError> errors;
+	
+	/** if <tt>false</tt>, the exception thrown does not record its stack trace */
+	private final boolean writableStackTrace;
+	
+	ParseResult(CommandLine commandLine, List<ParseError> errors, boolean writableStackTrace) {
+		this.commandLine = commandLine;
+		this.errors = Collections.unmodifiableList(errors);
+		this.writableStackTrace = writableStackTrace;
+	}
+	
+	public boolean isSuccess() {
+		return errors.isEmpty();
+	}
+	
+	/**
+	 * @return the command line, which only holds the valid arguments when there are errors
+	 */
+	public CommandLine getCommandLine() {
+		return commandLine;
+	}
+	
+	/**
+	 * @return the errors, in the order they were found
+	 */
+	public List<ParseError> getErrors() {
+		return errors;
+	}
+	
+	/**
+	 * Returns the command line, or throws the exception {@link DefaultParser#parse} would have thrown: the first
+	 * error, or a single {@link MissingOptionException} listing every required option and group not found.
+	 *
+	 * @return the command line
+	 * @throws ParseException the first error
+	 */
+	public CommandLine getCommandLineOrThrow() throws ParseException {
+		List<Object> missing = new ArrayList<>();
+		for (ParseError error : errors) {
+			//the required options are only checked at the end of the parse, after every other error
+			if (error.getKind() != ParseError.Kind.MISSING_OPTION)
+				throw error.toException(writableStackTrace);
+			missing.add(error.getMissing());
+		}
+		if (!missing.isEmpty())
+			throw new MissingOptionException(missing, writableStackTrace);
+		
+		return commandLine;
+	}
+}
@@ -0,0 +1,83 @@
+package com.commandlineparser.entity;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable snapshot of the state of an {@link IncrementalParser} between two arguments.
+ */
+public final class ParseState {
+
+	private final ParsePlan plan;
+	private final int argumentCount;
+	private final Option pendingOption;
+	private final boolean valueRequired;
+	private final boolean skipParsing;
+	private final String[] selected;
+	private final List<Object> missingOptions;
+	
+	ParseState(ParsePlan plan, int argumentCount, Option pendingOption, boolean valueRequired, boolean skipParsing,
+			String[] selected, List<Object> missingOptions) {
+		this.plan = plan;
+		this.argumentCount = argumentCount;
+		this.pendingOption = pendingOption;
+		this.valueRequired = valueRequired;
+		this.skipParsing = skipParsing;
+		this.selected = selected;
+		this.missingOptions = Collections.unmodifiableList(missingOptions);
+	}
+	
+	/**
+	 * @return the number of arguments fed so far
+	 */
+	public int getArgumentCount() {
+		return argumentCount;
+	}
+	
+	/**
+	 * @return the option taking the next argument as its value, <code>null</code> if there is none
+	 */
+	public Option getPendingOption() {
+		return pendingOption;
+	}
+	
+	/**
+	 * @return <tt>true</tt> if the pending option needs a value, finishing now would fail
+	 */
+	public boolean isValueRequired() {
+		return valueRequired;
+	}
+	
+	/**
+	 * @return <tt>true</tt> if the next arguments are positional, after "--" or an argument stopping the parsing
+	 */
+	public boolean isEndOfOptions() {
+		return skipParsing;
+	}
+	
+	/**
+	 * @param group
+	 * @return the key of the option selected in <code>group</code>, <code>null</code> if there is none yet
+	 * @throws IllegalArgumentException if <code>group</code> is not a group of the parsed options
+	 */
+	public String getSelected(OptionGroup group) {
+		int index = plan.indexOf(group);
+		if (index < 0)
+			throw new IllegalArgumentException("The group " + group + " is not a group of the parsed options");
+		
+		return selected[index];
+	}
+	
+	/**
+	 * @return the required options keys and groups not found so far
+	 */
+	public List<Object> getMissingOptions() {
+		return missingOptions;
+	}
+	
+	@Override
+	public String toString() {
+		return "[ ParseState: " + argumentCount + " :: " + (pendingOption != null ? pendingOption.getKey() : null)
+				+ (skipParsing ? " end of options" : "") + " ]";
+	}
+}
@@ -0,0 +1,58 @@
+package com.commandlineparser.entity;
+
+import com.commandlineparser.exception.ParseException;
+
+/**
+ * The outcome of one line of a command line file read by {@link DefaultParser#parseLines}.
+ */
+public final class ParsedLine {
+
+	private final long offset;
+	private final String line;
+	private final CommandLine commandLine;
+	private final ParseException exception;
+	
+	ParsedLine(long offset, String line, CommandLine commandLine, ParseException exception) {
+		this.offset = offset;
+		this.line = line;
+		this.commandLine = commandLine;
+		this.exception = exception;
+	}
+	
+	/**
+	 * @return the position in bytes of the line in the file
+	 */
+	public long getOffset() {
+		return offset;
+	}
+	
+	/**
+	 * @return the text of the line, without the line terminator
+	 */
+	public String getLine() {
+		return line;
+	}
+	
+	public boolean isSuccess() {
+		return exception == null;
+	}
+	
+	/**
+	 * @return the parsed command line, <code>null</code> if the parsing failed
+	 */
+	public CommandLine getCommandLine() {
+		return commandLine;
+	}
+	
+	/**
+	 * @return the exception thrown by the parser, <code>null</code> if the parsing succeeded
+	 */
+	public ParseException getException() {
+		return exception;
+	}
+	
+	@Override
+	public String toString() {
+		return "[ ParsedLine: " + offset + " :: " + line + " ]";
+	}
+}
@@ -3,11 +3,26 @@ package com.commandlineparser.entity;
 import java.io.File;
 import java.io.FileInputStream;
 import java.net.URL;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * 
  * Allows Options to be created from a single String.
+ * <p>
+ * Each option is a character followed by the codes describing it: a value code gives the type of its argument, see
+ * {@link #getValueClass(char)}, and <code>!</code> makes it required, as in <code>"a:b%c!&gt;"</code>. The codes
+ * can also hold:
+ * <ul>
+ * <li>a long name in parentheses, <code>v(verbose)</code>, or alone for an option without short name,
+ * <code>(dry-run)</code>;</li>
+ * <li>an arity in braces, <code>{3}</code> for a number of arguments, <code>{*}</code> for any number and
+ * <code>{?}</code> for an optional argument, the argument being a string unless a value code is given;</li>
+ * </ul>
+ * and options in brackets form a group of mutually exclusive options, <code>[xyz]</code>, required if followed by
+ * <code>!</code>. For instance <code>"f(file)&lt;o(out):{2}[(json)(xml)]!"</code>.
  * 
  * @author Richard
  * @Date 2017-12-01 22:12:25
@@ -24,6 +39,19 @@ public class PatternOptionBuilder {
 	public static final Class<File[]> FILES_VALUE = File[].class;
 	public static final Class<URL> URL_VALUE = URL.class;
 	
+	static final int MAX_CACHED_PATTERNS = 256;
+	
+	/** key: a pattern, value: its compiled options, in access order */
+	private static final Map<String, ParsePlan> PATTERNS = Collections.synchronizedMap(new LinkedHashMap<String, ParsePlan>(16, 0.75f, true) {
+		
+		private static final long serialVersionUID = 5034218729013372185L;
+		
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, ParsePlan> eldest) {
+			return size() > MAX_CACHED_PATTERNS;
+		}
+	});
+	
 	public static Object getValueClass(char ch) {
 		switch (ch) {
 		case '@':
@@ -57,47 +85,190 @@ public class PatternOptionBuilder {
 				|| ch == '/' || ch == '!';
 	}
 	
+	/**
+	 * Creates the options described by <code>pattern</code>, a new instance on each call.
+	 * 
+	 * @param pattern the pattern, see the class documentation for its grammar
+	 * @return the options
+	 * @throws IllegalArgumentException if the pattern is not valid
+	 */
 	public static Options parsePattern(String pattern) {
-		char opt = ' ';
-		boolean required = false;
-		Class<?> type = null;
-		Options options = new Options();
+		return new PatternParser(pattern).parse();
+	}
+	
+	/**
+	 * Returns the compiled options described by <code>pattern</code>. The plan is built on the first call for a 
+	 * pattern and shared by every later call with the same pattern, from any thread: the plan copies the definitions
+	 * of its options, and the options and groups it returns are frozen. The plans of the 
+	 * {@value #MAX_CACHED_PATTERNS} patterns used last are kept.
+	 * 
+	 * @param pattern the pattern, see the class documentation for its grammar
+	 * @return the compiled options
+	 * @throws IllegalArgumentException if the pattern is not valid
+	 */
+	public static ParsePlan compilePattern(String pattern) {
+		ParsePlan plan = PATTERNS.get(pattern);
+		if (plan != null)
+			return plan;
 		
-		for (int i = 0; i < pattern.length(); i++) {
-			char ch = pattern.charAt(i);
-			
-			//a value code comes after an option and specifies details about it
-			if (!isValueCode(ch)) {
-				if (opt != ' ') {
-					final Option option = Option.builder(String.valueOf(opt))
-							.hasArg(type != null)
-							.required(required)
-							.type(type)
-							.build();
-					options.addOption(option);
-					required = false;
-					type = null;
-					opt = ' ';
-				}
+		plan = parsePattern(pattern).compile();
+		//the pattern may have been compiled by another thread meanwhile
+		ParsePlan previous = PATTERNS.putIfAbsent(pattern, plan);
+		
+		return previous != null ? previous : plan;
+	}
+	
+	/**
+	 * Reads a pattern from left to right. The codes read while there is no current option, at the start of the 
+	 * pattern or after a space, go to the next option.
+	 */
+	private static final class PatternParser {
+		
+		private final String pattern;
+		private final Options options = new Options();
+		
+		/** the current option, the short name being <code>null</code> for an option with only a long name */
+		private boolean hasOption;
+		private String opt;
+		private String longOpt;
+		
+		private boolean required;
+		private Class<?> type;
+		private int numberOfArgs = Option.UNINITIALIZED;
+		private boolean optionalArg;
+		
+		/** the group being read, <code>null</code> outside of brackets */
+		private OptionGroup group;
+		
+		PatternParser(String pattern) {
+			this.pattern = pattern;
+		}
+		
+		Options parse() {
+			for (int i = 0; i < pattern.length(); i++) {
+				char ch = pattern.charAt(i);
 				
-				opt = ch;
-			} else if (ch == '!') {
-				required = true;
+				if (ch == '!') {
+					required = true;
+				} else if (isValueCode(ch)) {
+					type = (Class<?>) getValueClass(ch);
+				} else if (ch == '{') {
+					i = readArity(i);
+				} else if (ch == '(') {
+					int end = close(i, ')');
+					if (!hasOption || longOpt != null) {
+						addOption();
+						hasOption = true;
+						opt = null;
+					}
+					longOpt = pattern.substring(i + 1, end);
+					if (longOpt.isEmpty())
+						throw error(i, "empty long name");
+					i = end;
+				} else if (ch == '[') {
+					if (group != null)
+						throw error(i, "nested group");
+					addOption();
+					group = new OptionGroup();
+				} else if (ch == ']') {
+					if (group == null)
+						throw error(i, "no group to close");
+					addOption();
+					if (group.getOptions().isEmpty())
+						throw error(i, "empty group");
+					if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '!') {
+						group.setRequired(true);
+						i++;
+					}
+					options.addOptionGroup(group);
+					group = null;
+				} else if (ch == ')' || ch == '}') {
+					throw error(i, "unexpected '" + ch + "'");
+				} else if (ch == ' ') {
+					addOption();
+				} else {
+					addOption();
+					hasOption = true;
+					opt = String.valueOf(ch);
+				}
+			}
+			
+			if (group != null)
+				throw error(pattern.length(), "unclosed group");
+			
+			// Maybe The final option need dealing with
+			addOption();
+			
+			return options;
+		}
+		
+		/**
+		 * Reads the arity starting at <code>start</code>: a number of arguments, <code>*</code> or <code>?</code>.
+		 * 
+		 * @return the position of the closing brace
+		 */
+		private int readArity(int start) {
+			int end = close(start, '}');
+			String arity = pattern.substring(start + 1, end);
+			
+			optionalArg = false;
+			if (arity.equals("*")) {
+				numberOfArgs = Option.UNLIMITED_VALUES;
+			} else if (arity.equals("?")) {
+				numberOfArgs = 1;
+				optionalArg = true;
 			} else {
-				type = (Class<?>) getValueClass(ch);
+				try {
+					numberOfArgs = Integer.parseInt(arity);
+				} catch (NumberFormatException e) {
+					numberOfArgs = 0;
+				}
+				if (numberOfArgs < 1)
+					throw error(start, "invalid arity '" + arity + "'");
 			}
+			
+			return end;
 		}
 		
-		// Maybe The final option need dealing with
-		if (opt != ' ') {
-			final Option option = Option.builder(String.valueOf(opt))
-					.hasArg(type != null)
-					.required(required)
-					.type(type)
-					.build();
-			options.addOption(option);
+		private int close(int start, char closing) {
+			int end = pattern.indexOf(closing, start + 1);
+			if (end == -1)
+				throw error(start, "'" + closing + "' expected");
+			
+			return end;
 		}
 		
-		return options;
+		/**
+		 * Adds the current option, if any, to the group being read or to the options.
+		 */
+		private void addOption() {
+			if (!hasOption)
+				return;
+			
+			Option.Builder builder = Option.builder(opt)
+					.longOpt(longOpt)
+					.required(required);
+			if (numberOfArgs != Option.UNINITIALIZED)
+				builder.numberOfArgs(numberOfArgs).optionalArg(optionalArg).type(type != null ? type : STRING_VALUE);
+			else
+				builder.hasArg(type != null).type(type);
+			
+			if (group != null)
+				group.addOption(builder.build());
+			else
+				options.addOption(builder.build());
+			
+			hasOption = false;
+			opt = null;
+			longOpt = null;
+			required = false;
+			type = null;
+			numberOfArgs = Option.UNINITIALIZED;
+			optionalArg = false;
+		}
+		
+		private IllegalArgumentException error(int index, String reason) {
+			return new IllegalArgumentException("Invalid pattern '" + pattern + "' at " + index + ": " + reason);
+		}
 	}
 }
@@ -0,0 +1,197 @@
+package com.commandlineparser.entity;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.commandlineparser.exception.ParseException;
+
+/**
+ * The arguments held by a javac-style response file, named by an argument <code>@file</code>.
+ * <p>
+ * The file is memory-mapped and split into arguments as a shell does, see {@link ShellTokenizer}. The arguments are
+ * kept as ranges of the mapped file: a file in ASCII is read in place, only other files are decoded, and no argument
+ * is copied into a <code>String</code> until the parser asks for it. The files read are cached by their real path
+ * and checked against their modification time and size, so that a file shared by many parses is split once. The 
+ * {@value #MAX_CACHED_FILES} files used last are kept.
+ */
+final class ResponseFile {
+
+	static final int MAX_CACHED_FILES = 64;
+	
+	/** key: the real path of a file, value: its arguments, in access order */
+	private static final Map<Path, ResponseFile> CACHE = Collections.synchronizedMap(new LinkedHashMap<Path, ResponseFile>(16, 0.75f, true) {
+		
+		private static final long serialVersionUID = -1860944337165264914L;
+		
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Path, ResponseFile> eldest) {
+			return size() > MAX_CACHED_FILES;
+		}
+	});
+	
+	private final Path path;
+	private final FileTime modified;
+	private final long size;
+	
+	/** the arguments of the file, <code>null</code> if it cannot be split */
+	private final ShellTokenizer arguments;
+	private final String error;
+	
+	private ResponseFile(Path path, BasicFileAttributes attributes) throws IOException {
+		this.path = path;
+		this.modified = attributes.lastModifiedTime();
+		this.size = attributes.size();
+		
+		ShellTokenizer tokenizer = new ShellTokenizer();
+		String message = null;
+		try {
+			tokenizer.tokenize(read(path));
+		} catch (ParseException e) {
+			tokenizer = null;
+			message = e.getMessage();
+		}
+		this.arguments = tokenizer;
+		this.error = message;
+	}
+	
+	/**
+	 * Returns the arguments of the file named <code>name</code>, read again only if the file has changed since it
+	 * was last read.
+	 *
+	 * @param name the path of the file, relative to the working directory
+	 * @return the file
+	 * @throws IOException if the file cannot be read
+	 */
+	static ResponseFile read(String name) throws IOException {
+		Path path = Paths.get(name).toRealPath();
+		BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		
+		ResponseFile cached = CACHE.get(path);
+		if (cached != null && cached.isCurrent(attributes))
+			return cached;
+		
+		//the file is split outside the lock, another thread may have read it meanwhile
+		ResponseFile file = new ResponseFile(path, attributes);
+		synchronized (CACHE) {
+			cached = CACHE.get(path);
+			if (cached != null && cached.isCurrent(attributes))
+				return cached;
+			CACHE.put(path, file);
+		}
+		
+		return file;
+	}
+	
+	/**
+	 * @return <tt>true</tt> if the file has the modification time and the size it had when it was read
+	 */
+	private boolean isCurrent(BasicFileAttributes attributes) {
+		return modified.equals(attributes.lastModifiedTime()) && size == attributes.size();
+	}
+	
+	/**
+	 * Maps the file and returns its characters, a view of the mapped bytes if they are all ASCII.
+	 */
+	private static CharSequence read(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long length = channel.size();
+			if (length > Integer.MAX_VALUE)
+				throw new IOException("The file is too large: " + length + " bytes");
+			
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+			for (int i = 0; i < buffer.limit(); i++) {
+				if (buffer.get(i) < 0) {
+					CharSequence text = StandardCharsets.UTF_8.newDecoder().decode(buffer.duplicate());
+					//a byte order mark is not part of the first argument
+					return text.length() > 0 && text.charAt(0) == '\uFEFF' ? text.subSequence(1, text.length()) : text;
+				}
+			}
+			
+			return new AsciiText(buffer, 0, buffer.limit());
+		}
+	}
+	
+	/**
+	 * @return the real path of the file
+	 */
+	Path getPath() {
+		return path;
+	}
+	
+	/**
+	 * @return the arguments of the file, <code>null</code> if it cannot be split
+	 */
+	ShellTokenizer getArguments() {
+		return arguments;
+	}
+	
+	/**
+	 * @return the reason why the file cannot be split, <code>null</code> if it can
+	 */
+	String getError() {
+		return error;
+	}
+	
+	@Override
+	public String toString() {
+		return "[ ResponseFile: " + path + " :: " + (arguments != null ? arguments.size() + " arguments" : error) + " ]";
+	}
+	
+	/**
+	 * The characters of ASCII bytes, read from the buffer when they are asked for.
+	 */
+	private static final class AsciiText implements CharSequence {
+		
+		private final ByteBuffer buffer;
+		private final int offset;
+		private final int length;
+		
+		AsciiText(ByteBuffer buffer, int offset, int length) {
+			this.buffer = buffer;
+			this.offset = offset;
+			this.length = length;
+		}
+		
+		@Override
+		public int length() {
+			return length;
+		}
+		
+		@Override
+		public char charAt(int index) {
+			if (index < 0 || index >= length)
+				throw new IndexOutOfBoundsException("Index: " + index);
+			
+			return (char) buffer.get(offset + index);
+		}
+		
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			if (start < 0 || end > length || start > end)
+				throw new IndexOutOfBoundsException("Range: " + start + ", " + end);
+			
+			return new AsciiText(buffer, offset + start, end - start);
+		}
+		
+		@Override
+		public String toString() {
+			byte[] bytes = new byte[length];
+			for (int i = 0; i < length; i++)
+				bytes[i] = buffer.get(offset + i);
+			
+			return new String(bytes, StandardCharsets.US_ASCII);
+		}
+	}
+}
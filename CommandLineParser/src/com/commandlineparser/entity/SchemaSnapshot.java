@@ -0,0 +1,399 @@
+package com.commandlineparser.entity;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.commandlineparser.exception.ParseException;
+
+/**
+ * A compact binary form of an {@link Options} schema, written once and loaded by short-lived processes instead of
+ * building the options again.
+ * <p>
+ * Every string is stored once in a table of UTF-8 strings and referred to by its index. An option is a record of
+ * fixed size, its flags packed as bits, and a group is the array of the indexes of its options. The name maps and the
+ * required options of the <code>Options</code> are stored as they are, so the loaded options compile to the same
+ * {@link ParsePlan}.
+ * <p>
+ * A snapshot is loaded by mapping the file: only the names of the options are decoded, the argument name, the
+ * description and the type of an option are read from the mapped file the first time one of them is asked for.
+ *
+ * <pre>
+ * header   magic, version, counts of strings, options, names, groups, group keys and required options
+ * strings  the offset of each string then the UTF-8 bytes
+ * options  per option: opt, longOpt, argName, description, type, number of args, flags and value separator
+ * names    the short then the long names: the option, preceded by ~name if it is not the key or long name of the option
+ * groups   per group: flags, size, options
+ * keys     the group of each option key: key, group
+ * required the required option keys, or ~group for a group
+ * </pre>
+ */
+public final class SchemaSnapshot {
+
+	static final int MAGIC = 0x434C5053;    //CLPS
+	static final int VERSION = 1;
+	
+	/** the size of an option record, in ints and in bytes */
+	static final int RECORD_INTS = 7;
+	static final int OPTION_SIZE = RECORD_INTS * 4;
+	
+	/** the index of a string which is <code>null</code> */
+	private static final int NONE = -1;
+	
+	private static final int REQUIRED = 1;
+	private static final int OPTIONAL_ARG = 1 << 1;
+	
+	private final ByteBuffer buffer;
+	
+	/** the position of the first string and of the first option record */
+	private final int stringsStart;
+	private final int optionsStart;
+	
+	/** the offset of each string from {@link #stringsStart} */
+	private final int[] stringOffsets;
+	
+	/** the option records, copied from the file as they are read for every option */
+	private final int[] records;
+	
+	/** the strings decoded so far */
+	private final String[] strings;
+	
+	private SchemaSnapshot(ByteBuffer buffer, int stringCount, int optionCount) {
+		this.buffer = buffer;
+		this.stringOffsets = new int[stringCount + 1];
+		buffer.asIntBuffer().get(stringOffsets);
+		this.stringsStart = buffer.position() + stringOffsets.length * 4;
+		this.optionsStart = stringsStart + stringOffsets[stringCount];
+		this.records = new int[optionCount * RECORD_INTS];
+		((ByteBuffer) buffer.position(optionsStart)).asIntBuffer().get(records);
+		this.strings = new String[stringCount];
+	}
+	
+	/**
+	 * Writes the snapshot of <code>options</code> to <code>file</code>.
+	 *
+	 * @param options the options, including their groups and required options
+	 * @param file the file to create or replace
+	 * @throws IOException if the file cannot be written
+	 * @throws IllegalArgumentException if an option has a primitive type, which cannot be stored
+	 */
+	public static void write(Options options, Path file) throws IOException {
+		try (OutputStream out = Files.newOutputStream(file)) {
+			write(options, out);
+		}
+	}
+	
+	/**
+	 * Writes the snapshot of <code>options</code> to <code>out</code>, which is left open.
+	 *
+	 * @see #write(Options, Path)
+	 */
+	public static void write(Options options, OutputStream out) throws IOException {
+		Map<String, Integer> strings = new LinkedHashMap<>();
+		
+		//the options in the order of the plan, then the members of the groups absent from the maps
+		Map<Option, Integer> ids = new IdentityHashMap<>();
+		List<Option> records = new ArrayList<>();
+		for (Option option : options.shortOpts.values())
+			add(ids, records, option);
+		for (Option option : options.longOpts.values())
+			add(ids, records, option);
+		
+		Map<OptionGroup, Integer> groupIds = new IdentityHashMap<>();
+		List<OptionGroup> groups = new ArrayList<>();
+		for (OptionGroup group : options.optionGroups.values())
+			add(groupIds, groups, group);
+		for (Object required : options.requiredOpts) {
+			if (required instanceof OptionGroup)
+				add(groupIds, groups, (OptionGroup) required);
+		}
+		for (OptionGroup group : groups) {
+			for (Option option : group.getOptions())
+				add(ids, records, option);
+		}
+		
+		ByteBuffer recordBuffer = ByteBuffer.allocate(records.size() * OPTION_SIZE);
+		for (Option option : records) {
+			Object type = option.getType();
+			if (type instanceof Class && ((Class<?>) type).isPrimitive())
+				throw new IllegalArgumentException("The type of the option '" + option.getKey() + "' is primitive: " + type);
+			
+			recordBuffer.putInt(intern(strings, option.getOpt()));
+			recordBuffer.putInt(intern(strings, option.getLongOpt()));
+			recordBuffer.putInt(intern(strings, option.getArgName()));
+			recordBuffer.putInt(intern(strings, option.getDescription()));
+			recordBuffer.putInt(intern(strings, type != null ? ((Class<?>) type).getName() : null));
+			recordBuffer.putInt(option.getNumberOfArgs());
+			int flags = (option.isRequired() ? REQUIRED : 0) | (option.hasOptionalArg() ? OPTIONAL_ARG : 0);
+			recordBuffer.putInt(flags << 16 | option.getValueSeparator());
+		}
+		
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+		IntList names = new IntList();
+		for (Map.Entry<String, Option> entry : options.shortOpts.entrySet())
+			addName(names, strings, entry.getKey(), entry.getValue().getKey(), ids.get(entry.getValue()));
+		for (Map.Entry<String, Option> entry : options.longOpts.entrySet())
+			addName(names, strings, entry.getKey(), entry.getValue().getLongOpt(), ids.get(entry.getValue()));
+		IntList keys = new IntList();
+		for (Map.Entry<String, OptionGroup> entry : options.optionGroups.entrySet())
+			keys.add(intern(strings, entry.getKey()), groupIds.get(entry.getValue()));
+		IntList required = new IntList();
+		for (Object key : options.requiredOpts)
+			required.add(key instanceof OptionGroup ? ~groupIds.get(key) : intern(strings, (String) key));
+		
+		data.writeInt(MAGIC);
+		data.writeShort(VERSION);
+		data.writeShort(0);
+		data.writeInt(strings.size());
+		data.writeInt(records.size());
+		data.writeInt(options.shortOpts.size());
+		data.writeInt(options.longOpts.size());
+		data.writeInt(groups.size());
+		data.writeInt(options.optionGroups.size());
+		data.writeInt(options.requiredOpts.size());
+		
+		byte[][] encoded = new byte[strings.size()][];
+		int offset = 0;
+		data.writeInt(offset);
+		for (String string : strings.keySet()) {
+			byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			encoded[strings.get(string)] = bytes;
+			offset += bytes.length;
+			data.writeInt(offset);
+		}
+		for (byte[] bytes : encoded)
+			data.write(bytes);
+		
+		data.write(recordBuffer.array());
+		names.writeTo(data);
+		for (OptionGroup group : groups) {
+			data.writeInt(group.isRequired() ? REQUIRED : 0);
+			data.writeInt(group.getOptions().size());
+			for (Option option : group.getOptions())
+				data.writeInt(ids.get(option));
+		}
+		keys.writeTo(data);
+		required.writeTo(data);
+		data.flush();
+	}
+	
+	private static <T> void add(Map<T, Integer> ids, List<T> list, T element) {
+		if (!ids.containsKey(element)) {
+			ids.put(element, list.size());
+			list.add(element);
+		}
+	}
+	
+	/**
+	 * Adds the option registered under <code>name</code>, the name is only written if the option was renamed since.
+	 */
+	private static void addName(IntList names, Map<String, Integer> strings, String name, String optionName, int id) {
+		if (!name.equals(optionName))
+			names.add(~intern(strings, name));
+		names.add(id);
+	}
+	
+	private static int intern(Map<String, Integer> strings, String string) {
+		if (string == null)
+			return NONE;
+		
+		Integer index = strings.get(string);
+		if (index == null) {
+			index = strings.size();
+			strings.put(string, index);
+		}
+		
+		return index;
+	}
+	
+	/**
+	 * Loads the options of a snapshot written by {@link #write(Options, Path)}. The file is mapped and stays mapped
+	 * as long as an option of the snapshot has metadata left to decode.
+	 *
+	 * @param file the snapshot
+	 * @return the options, ready to be compiled
+	 * @throws IOException if the file cannot be read, is not a snapshot or has another version
+	 */
+	public static Options load(Path file) throws IOException {
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE)
+				throw new IOException("The file is too large: " + size + " bytes");
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		}
+		
+		try {
+			if (buffer.remaining() < 4 || buffer.getInt() != MAGIC)
+				throw new IOException("Not an options snapshot: " + file);
+			int version = buffer.getShort();
+			if (version != VERSION)
+				throw new IOException("Unsupported snapshot version " + version + ": " + file);
+			buffer.getShort();
+			
+			return read(buffer);
+		} catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException | IllegalArgumentException e) {
+			//a count or an offset points out of the file
+			throw new IOException("Corrupted options snapshot: " + file, e);
+		}
+	}
+	
+	private static Options read(ByteBuffer buffer) {
+		int stringCount = buffer.getInt();
+		int optionCount = buffer.getInt();
+		int shortCount = buffer.getInt();
+		int longCount = buffer.getInt();
+		int groupCount = buffer.getInt();
+		int keyCount = buffer.getInt();
+		int requiredCount = buffer.getInt();
+		
+		SchemaSnapshot snapshot = new SchemaSnapshot(buffer, stringCount, optionCount);
+		Option[] records = new Option[optionCount];
+		for (int id = 0; id < optionCount; id++)
+			records[id] = snapshot.option(id);
+		
+		//the sections following the options are small, they are copied at once
+		IntBuffer sections = ((ByteBuffer) buffer.position(snapshot.optionsStart + optionCount * OPTION_SIZE)).asIntBuffer();
+		int[] ints = new int[sections.remaining()];
+		sections.get(ints);
+		int pos = 0;
+		
+		//the options are filled as they were written, without going through addOption, but frozen as if they had
+		Options options = new Options();
+		for (Option record : records) {
+			record.freeze();
+			options.changed();
+		}
+		pos = snapshot.readNames(ints, pos, records, shortCount, options.shortOpts, false);
+		pos = snapshot.readNames(ints, pos, records, longCount, options.longOpts, true);
+		
+		OptionGroup[] groups = new OptionGroup[groupCount];
+		for (int i = 0; i < groupCount; i++) {
+			OptionGroup group = new OptionGroup();
+			group.setRequired((ints[pos++] & REQUIRED) != 0);
+			int size = ints[pos++];
+			for (int j = 0; j < size; j++)
+				group.addOption(records[ints[pos++]]);
+			group.freeze();
+			options.changed();
+			groups[i] = group;
+		}
+		for (int i = 0; i < keyCount; i++, pos += 2)
+			options.optionGroups.put(snapshot.string(ints[pos]), groups[ints[pos + 1]]);
+		for (int i = 0; i < requiredCount; i++) {
+			int key = ints[pos++];
+			options.requiredOpts.add(key < 0 ? groups[~key] : snapshot.string(key));
+		}
+		
+		return options;
+	}
+	
+	/**
+	 * Reads <code>count</code> names starting at <code>pos</code> into <code>names</code>.
+	 * 
+	 * @return the position following the names
+	 */
+	private int readNames(int[] ints, int pos, Option[] records, int count, Map<String, Option> names, boolean longNames) {
+		for (int i = 0; i < count; i++) {
+			int entry = ints[pos++];
+			String name = entry < 0 ? string(~entry) : null;
+			Option option = records[entry < 0 ? ints[pos++] : entry];
+			if (name == null)
+				name = longNames ? option.getLongOpt() : option.getKey();
+			names.put(name, option);
+		}
+		
+		return pos;
+	}
+	
+	/**
+	 * Creates the option of the record <code>id</code>, its metadata left to decode.
+	 */
+	private Option option(int id) {
+		int record = id * RECORD_INTS;
+		int flags = records[record + 6] >>> 16;
+		
+		return new Option(string(records[record]), string(records[record + 1]), records[record + 5], (flags & REQUIRED) != 0,
+				(flags & OPTIONAL_ARG) != 0, (char) records[record + 6], this, id);
+	}
+	
+	String argName(int id) {
+		return string(records[id * RECORD_INTS + 2]);
+	}
+	
+	String description(int id) {
+		return string(records[id * RECORD_INTS + 3]);
+	}
+	
+	Class<?> type(int id) {
+		String name = string(records[id * RECORD_INTS + 4]);
+		try {
+			return name != null ? TypeHandler.createClass(name) : null;
+		} catch (ParseException e) {
+			throw new IllegalStateException("Cannot load the type of option " + id + " of the snapshot", e);
+		}
+	}
+	
+	/**
+	 * @return the string at <code>index</code> of the table, decoded on first use
+	 */
+	private String string(int index) {
+		if (index == NONE)
+			return null;
+		
+		String string = strings[index];
+		if (string == null) {
+			//a duplicate keeps the position of the buffer, several threads may decode at the same time
+			ByteBuffer bytes = buffer.duplicate();
+			bytes.position(stringsStart + stringOffsets[index]);
+			byte[] utf8 = new byte[stringOffsets[index + 1] - stringOffsets[index]];
+			bytes.get(utf8);
+			string = new String(utf8, StandardCharsets.UTF_8);
+			strings[index] = string;
+		}
+		
+		return string;
+	}
+	
+	@Override
+	public String toString() {
+		return "[ SchemaSnapshot: " + strings.length + " strings ]";
+	}
+	
+	/**
+	 * The ints of a section, written after the counts they depend on are known.
+	 */
+	private static final class IntList {
+		
+		private int[] values = new int[16];
+		private int size;
+		
+		void add(int... ints) {
+			for (int value : ints) {
+				if (size == values.length)
+					values = Arrays.copyOf(values, size * 2);
+				values[size++] = value;
+			}
+		}
+		
+		void writeTo(DataOutputStream out) throws IOException {
+			for (int i = 0; i < size; i++)
+				out.writeInt(values[i]);
+		}
+	}
+}
@@ -0,0 +1,187 @@
+package com.commandlineparser.entity;
+
+import java.util.Arrays;
+
+import com.commandlineparser.exception.ParseException;
+
+/**
+ * Splits a whole command line into arguments the way a POSIX shell does.
+ * <p>
+ * Arguments are separated by runs of whitespace. Single quotes keep every character up to the next single quote,
+ * double quotes keep every character up to the next double quote except that a backslash still escapes
+ * <code>"</code>, <code>\</code>, <code>$</code> and <code>`</code>, and outside of quotes a backslash escapes any
+ * character.
+ * <p>
+ * The line is read in a single pass and the arguments are kept as offset ranges: an argument without quotes or
+ * backslashes is a range of the line itself, only the others are copied, without their quotes and escapes, into a
+ * buffer shared by all the arguments. A tokenizer can be reused for several lines but not by several threads.
+ */
+public final class ShellTokenizer {
+
+	private CharSequence line;
+	private final StringBuilder buffer = new StringBuilder();
+	
+	/** start and end of each argument, a negative start (~start) denotes a range of the buffer */
+	private int[] ranges = new int[16];
+	private int size;
+	
+	/**
+	 * Splits <code>line</code> into arguments.
+	 *
+	 * @param line the command line
+	 * @return the arguments
+	 * @throws ParseException if a quote is not closed
+	 */
+	public static String[] split(CharSequence line) throws ParseException {
+		return new ShellTokenizer().tokenize(line).toArray();
+	}
+	
+	/**
+	 * Reads the arguments of <code>line</code>, replacing those of the previous line.
+	 *
+	 * @param line the command line
+	 * @return this tokenizer
+	 * @throws ParseException if a quote is not closed
+	 */
+	public ShellTokenizer tokenize(CharSequence line) throws ParseException {
+		this.line = line;
+		buffer.setLength(0);
+		size = 0;
+		
+		int length = line.length();
+		int i = 0;
+		while (true) {
+			while (i < length && Character.isWhitespace(line.charAt(i)))
+				i++;
+			if (i == length)
+				break;
+			
+			int start = i;
+			int bufferStart = -1;
+			while (i < length) {
+				char ch = line.charAt(i);
+				if (Character.isWhitespace(ch))
+					break;
+				
+				if (ch != '\'' && ch != '"' && ch != '\\') {
+					if (bufferStart != -1)
+						buffer.append(ch);
+					i++;
+					continue;
+				}
+				
+				//from here the argument differs from the line, copy what has been read so far
+				if (bufferStart == -1) {
+					bufferStart = buffer.length();
+					buffer.append(line, start, i);
+				}
+				
+				if (ch == '\\') {
+					buffer.append(i + 1 < length ? line.charAt(i + 1) : ch);
+					i += 2;
+				} else if (ch == '\'') {
+					int close = indexOf(line, '\'', i + 1);
+					buffer.append(line, i + 1, close);
+					i = close + 1;
+				} else {
+					i = readDoubleQuoted(line, i + 1);
+				}
+			}
+			
+			if (bufferStart == -1)
+				add(start, i);
+			else
+				add(~bufferStart, buffer.length());
+			i = Math.min(i, length);
+		}
+		
+		return this;
+	}
+	
+	/**
+	 * Copies the content of a double quoted string starting at <code>from</code> into the buffer.
+	 *
+	 * @return the position following the closing quote
+	 */
+	private int readDoubleQuoted(CharSequence line, int from) throws ParseException {
+		int length = line.length();
+		for (int i = from; i < length; i++) {
+			char ch = line.charAt(i);
+			if (ch == '"')
+				return i + 1;
+			
+			if (ch == '\\' && i + 1 < length) {
+				char next = line.charAt(i + 1);
+				if (next == '"' || next == '\\' || next == '$' || next == '`') {
+					buffer.append(next);
+					i++;
+					continue;
+				}
+			}
+			buffer.append(ch);
+		}
+		
+		throw new ParseException("Unterminated quote: \"" + line.subSequence(from, length));
+	}
+	
+	private static int indexOf(CharSequence line, char quote, int from) throws ParseException {
+		for (int i = from; i < line.length(); i++) {
+			if (line.charAt(i) == quote)
+				return i;
+		}
+		
+		throw new ParseException("Unterminated quote: " + quote + line.subSequence(from, line.length()));
+	}
+	
+	private void add(int start, int end) {
+		if (ranges.length < (size + 1) * 2)
+			ranges = Arrays.copyOf(ranges, ranges.length * 2);
+		
+		ranges[size * 2] = start;
+		ranges[size * 2 + 1] = end;
+		size++;
+	}
+	
+	/**
+	 * @return the number of arguments
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * @return the characters holding the argument at <code>index</code>, between {@link #start(int)} and
+	 *     {@link #end(int)}
+	 */
+	CharSequence text(int index) {
+		return ranges[index * 2] < 0 ? buffer : line;
+	}
+	
+	int start(int index) {
+		int start = ranges[index * 2];
+		
+		return start < 0 ? ~start : start;
+	}
+	
+	int end(int index) {
+		return ranges[index * 2 + 1];
+	}
+	
+	/**
+	 * @return the argument at <code>index</code>
+	 */
+	public String get(int index) {
+		return text(index).subSequence(start(index), end(index)).toString();
+	}
+	
+	/**
+	 * @return a copy of the arguments
+	 */
+	public String[] toArray() {
+		String[] result = new String[size];
+		for (int i = 0; i < size; i++)
+			result[i] = get(i);
+		
+		return result;
+	}
+}
@@ -0,0 +1,140 @@
+package com.commandlineparser.entity;
+
+/**
+ * A command line token classified in one pass.
+ * <p>
+ * The token only records offsets into the text it was read from: the kind of prefix, the range of the option name,
+ * the position of the first equal sign and the range left once the surrounding quotes are stripped. Strings are
+ * created only when a caller asks for the token, a value or a part of the name, so a token can be reused for every
+ * argument of a parse.
+ */
+final class Token {
+
+	/** a token that is not an option: no leading hyphen, or a single "-" */
+	static final int ARGUMENT = 0;
+	/** the "--" token */
+	static final int END_OF_OPTIONS = 1;
+	/** a token with a single leading hyphen */
+	static final int SHORT = 2;
+	/** a token with two leading hyphens */
+	static final int LONG = 3;
+	
+	private CharSequence text;
+	private String string;
+	
+	int kind;
+	int start;
+	int end;
+	int nameStart;
+	/** the end of the name, which is the position of the equal sign if there is one */
+	int nameEnd;
+	/** the position of the first equal sign after the hyphens, -1 if there is none */
+	int equals;
+	
+	/** <tt>true</tt> if the token is enclosed in double quotes that are stripped when it is used as a value */
+	boolean quoted;
+	
+	/**
+	 * Classifies the whole <code>token</code>.
+	 */
+	Token lex(String token) {
+		lex(token, 0, token.length());
+		string = token;
+		
+		return this;
+	}
+	
+	/**
+	 * Classifies the characters of <code>text</code> between <code>start</code> (inclusive) and <code>end</code>
+	 * (exclusive).
+	 */
+	Token lex(CharSequence text, int start, int end) {
+		this.text = text;
+		this.string = null;
+		this.start = start;
+		this.end = end;
+		
+		int length = end - start;
+		int hyphens = 0;
+		if (length > 1 && text.charAt(start) == '-')
+			hyphens = text.charAt(start + 1) == '-' ? 2 : 1;
+		
+		if (hyphens == 0)
+			kind = ARGUMENT;
+		else if (length == 2 && hyphens == 2)
+			kind = END_OF_OPTIONS;
+		else
+			kind = hyphens == 2 ? LONG : SHORT;
+		
+		nameStart = start + hyphens;
+		equals = -1;
+		if (hyphens > 0) {
+			for (int i = nameStart; i < end; i++) {
+				if (text.charAt(i) == '=') {
+					equals = i;
+					break;
+				}
+			}
+		}
+		nameEnd = equals == -1 ? end : equals;
+		
+		//a single pair of enclosing quotes, without any other quote inside
+		quoted = false;
+		if (length > 1 && text.charAt(start) == '"' && text.charAt(end - 1) == '"') {
+			quoted = true;
+			for (int i = start + 1; i < end - 1; i++) {
+				if (text.charAt(i) == '"') {
+					quoted = false;
+					break;
+				}
+			}
+		}
+		
+		return this;
+	}
+	
+	char charAt(int index) {
+		return text.charAt(index);
+	}
+	
+	CharSequence text() {
+		return text;
+	}
+	
+	int length() {
+		return end - start;
+	}
+	
+	int nameLength() {
+		return nameEnd - nameStart;
+	}
+	
+	/**
+	 * @return the token used as the value of an option, without its enclosing quotes
+	 */
+	String value() {
+		return quoted ? substring(start + 1, end - 1) : toString();
+	}
+	
+	/**
+	 * @return the part of the token after the equal sign
+	 */
+	String valueAfterEquals() {
+		return substring(equals + 1, end);
+	}
+	
+	String substring(int from, int to) {
+		return text.subSequence(from, to).toString();
+	}
+	
+	/**
+	 * @return the whole token
+	 */
+	@Override
+	public String toString() {
+		if (string == null)
+			string = substring(start, end);
+		
+		return string;
+	}
+}
@@ -1,50 +1,172 @@
 package com.commandlineparser.entity;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.Path;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 
 import com.commandlineparser.exception.ParseException;
 
+/**
+ * Converts the values of the options to the types of the options.
+ * <p>
+ * The converters are registered by type, the types of {@link PatternOptionBuilder} have one and any other type can
+ * be given one with {@link #register(Class, Converter)}. The converter of a type is looked up once and kept in a
+ * <code>ClassValue</code>. The classes and constructors resolved by {@link #createClass} and {@link #createObject} 
+ * are kept in caches bounded to {@value #MAX_CACHED_CLASSES} entries.
+ */
 public class TypeHandler {
+	
+	static final int MAX_CACHED_CLASSES = 256;
+	
+	/** key: the type of an option, value: its converter */
+	private static final ConcurrentMap<Class<?>, Converter<?>> CONVERTERS = new ConcurrentHashMap<>();
+	
+	/** stands for a type without converter in {@link #LOOKUP} */
+	private static final Converter<Object> NO_CONVERTER = new Converter<Object>() {
+		@Override
+		public Object convert(String str) {
+			return null;
+		}
+	};
+	
+	private static final ClassValue<Converter<?>> LOOKUP = new ClassValue<Converter<?>>() {
+		@Override
+		protected Converter<?> computeValue(Class<?> type) {
+			Converter<?> converter = CONVERTERS.get(type);
+			
+			return converter != null ? converter : NO_CONVERTER;
+		}
+	};
+	
+	/** the classes found by name and their public constructors without parameters, in access order */
+	private static final Map<String, Class<?>> CLASSES = boundedCache();
+	private static final Map<Class<?>, Constructor<?>> CONSTRUCTORS = boundedCache();
+	
+	static {
+		register(PatternOptionBuilder.STRING_VALUE, new Converter<String>() {
+			@Override
+			public String convert(String str) {
+				return str;
+			}
+		});
+		register(PatternOptionBuilder.OBJECT_VALUE, new Converter<Object>() {
+			@Override
+			public Object convert(String str) throws ParseException {
+				return createObject(str);
+			}
+		});
+		register(PatternOptionBuilder.NUMBER_VALUE, new Converter<Number>() {
+			@Override
+			public Number convert(String str) throws ParseException {
+				return createNumber(str);
+			}
+		});
+		register(PatternOptionBuilder.DATE_VALUE, new Converter<Date>() {
+			@Override
+			public Date convert(String str) {
+				return createDate(str);
+			}
+		});
+		register(Class.class, new Converter<Class<?>>() {
+			@Override
+			public Class<?> convert(String str) throws ParseException {
+				return createClass(str);
+			}
+		});
+		register(PatternOptionBuilder.FILE_VALUE, new Converter<File>() {
+			@Override
+			public File convert(String str) {
+				return createFile(str);
+			}
+		});
+		register(PatternOptionBuilder.EXISTING_FILE_VALUE, new Converter<FileInputStream>() {
+			@Override
+			public FileInputStream convert(String str) throws ParseException {
+				return openFile(str);
+			}
+		});
+		register(PatternOptionBuilder.FILES_VALUE, new Converter<File[]>() {
+			@Override
+			public File[] convert(String str) throws ParseException {
+				return createFiles(str);
+			}
+		});
+		register(PatternOptionBuilder.URL_VALUE, new Converter<URL>() {
+			@Override
+			public URL convert(String str) throws ParseException {
+				return createURL(str);
+			}
+		});
+	}
+	
+	/**
+	 * Registers the converter of the values of the options of type <code>type</code>, replacing any converter 
+	 * registered for the same type.
+	 * 
+	 * @param type the type of the options, matched exactly
+	 * @param converter the converter
+	 */
+	public static <T> void register(Class<T> type, Converter<? extends T> converter) {
+		if (type == null || converter == null)
+			throw new IllegalArgumentException("A type and a converter are required");
+		
+		CONVERTERS.put(type, converter);
+		//the next lookup of the type reads the new converter
+		LOOKUP.remove(type);
+	}
+	
+	/**
+	 * @param type the type of an option
+	 * @return the converter registered for the type, <code>null</code> if there is none
+	 */
+	public static Converter<?> getConverter(Class<?> type) {
+		Converter<?> converter = type != null ? LOOKUP.get(type) : NO_CONVERTER;
+		
+		return converter != NO_CONVERTER ? converter : null;
+	}
+	
 	public static Object createValue(String str, Object obj) throws ParseException {
 		return createValue(str, (Class<?>) obj);
 	}
 	
+	/**
+	 * @return the value converted by the converter of <code>clazz</code>, <code>null</code> if the type has none
+	 */
 	public static Object createValue(String str, Class<?> clazz) throws ParseException {
-		if (PatternOptionBuilder.STRING_VALUE == clazz) {
-			return str;
-		} else if (PatternOptionBuilder.OBJECT_VALUE == clazz) {
-			return createObject(str);
-		} else if (PatternOptionBuilder.NUMBER_VALUE == clazz) {
-			return createNumber(str);
-		} else if (PatternOptionBuilder.DATE_VALUE == clazz) {
-			return createDate(str);
-		} else if (PatternOptionBuilder.CLASS_VALUE == clazz) {
-			return createClass(str);
-		} else if (PatternOptionBuilder.FILE_VALUE == clazz) {
-			return createFile(str);
-		} else if (PatternOptionBuilder.EXISTING_FILE_VALUE == clazz) {
-			return createFiles(str);
-		} else if (PatternOptionBuilder.URL_VALUE == clazz) {
-			return createURL(str);
-		} else {
+		if (clazz == null)
 			return null;
-		}
+		
+		return LOOKUP.get(clazz).convert(str);
 	}
 	
 	public static Object createObject(String className) throws ParseException {
-		Class<?> cl;
+		Class<?> cl = createClass(className);
 		
+		Constructor<?> constructor = CONSTRUCTORS.get(cl);
 		try {
-			cl = Class.forName(className);
-		} catch (ClassNotFoundException cnfe) {
-			throw new ParseException("Unable to find the class " + className);
-		}
-		
-		try {
-			return cl.newInstance();
+			if (constructor == null) {
+				constructor = cl.getConstructor();
+				CONSTRUCTORS.put(cl, constructor);
+			}
+			
+			return constructor.newInstance();
+		} catch (InvocationTargetException e) {
+			throw new ParseException(e.getCause().getMessage());
 		} catch (Exception e) {
 			throw new ParseException(e.getMessage());
 		}
@@ -60,12 +182,157 @@ public class TypeHandler {
 		}
 	}
 	
+	/**
+	 * Parses the decimal number held by <code>str</code> between <code>start</code> (inclusive) and <code>end</code>
+	 * (exclusive), without creating a <code>String</code>.
+	 * 
+	 * @throws ParseException if the characters are not a number or the number does not fit in a <code>long</code>
+	 */
+	public static long parseLong(CharSequence str, int start, int end) throws ParseException {
+		return parseLong(str, start, end, Long.MIN_VALUE, Long.MAX_VALUE);
+	}
+	
+	/**
+	 * @see #parseLong(CharSequence, int, int)
+	 */
+	public static int parseInt(CharSequence str, int start, int end) throws ParseException {
+		return (int) parseLong(str, start, end, Integer.MIN_VALUE, Integer.MAX_VALUE);
+	}
+	
+	public static double parseDouble(CharSequence str, int start, int end) throws ParseException {
+		try {
+			return Double.parseDouble(str.subSequence(start, end).toString());
+		} catch (NumberFormatException e) {
+			throw new ParseException(e.getMessage());
+		}
+	}
+	
+	private static long parseLong(CharSequence str, int start, int end, long min, long max) throws ParseException {
+		int i = start;
+		boolean negative = false;
+		if (i < end && (str.charAt(i) == '-' || str.charAt(i) == '+'))
+			negative = str.charAt(i++) == '-';
+		if (i == end)
+			throw numberFormat(str, start, end);
+		
+		//accumulated negatively, as Long.parseLong does, so that the minimum value is reached
+		long limit = negative ? min : -max;
+		long result = 0;
+		for (; i < end; i++) {
+			int digit = str.charAt(i) - '0';
+			if (digit < 0 || digit > 9 || result < (limit + digit) / 10)
+				throw numberFormat(str, start, end);
+			
+			result = result * 10 - digit;
+		}
+		
+		return negative ? result : -result;
+	}
+	
+	private static ParseException numberFormat(CharSequence str, int start, int end) {
+		return new ParseException("For input string: \"" + str.subSequence(start, end) + "\"");
+	}
+	
+	/**
+	 * Parses the numbers held by <code>values</code>, each value holding one number or several numbers separated by
+	 * commas.
+	 * 
+	 * @return the numbers in order
+	 * @throws ParseException if a number cannot be parsed
+	 */
+	static long[] createLongArray(List<String> values) throws ParseException {
+		long[] result = new long[countNumbers(values)];
+		int pos = 0;
+		for (String value : values) {
+			for (int start = 0, end; start <= value.length(); start = end + 1) {
+				end = nextComma(value, start);
+				result[pos++] = parseLong(value, start, end);
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * @see #createLongArray(List)
+	 */
+	static int[] createIntArray(List<String> values) throws ParseException {
+		int[] result = new int[countNumbers(values)];
+		int pos = 0;
+		for (String value : values) {
+			for (int start = 0, end; start <= value.length(); start = end + 1) {
+				end = nextComma(value, start);
+				result[pos++] = parseInt(value, start, end);
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * @see #createLongArray(List)
+	 */
+	static double[] createDoubleArray(List<String> values) throws ParseException {
+		double[] result = new double[countNumbers(values)];
+		int pos = 0;
+		for (String value : values) {
+			for (int start = 0, end; start <= value.length(); start = end + 1) {
+				end = nextComma(value, start);
+				result[pos++] = parseDouble(value, start, end);
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * @return the number of comma-separated numbers in <code>values</code>, to size the array exactly
+	 */
+	private static int countNumbers(List<String> values) {
+		int count = 0;
+		for (String value : values) {
+			count++;
+			for (int i = value.indexOf(','); i != -1; i = value.indexOf(',', i + 1))
+				count++;
+		}
+		
+		return count;
+	}
+	
+	private static int nextComma(String value, int from) {
+		int index = value.indexOf(',', from);
+		
+		return index != -1 ? index : value.length();
+	}
+	
 	public static Class<?> createClass(String str) throws ParseException {
+		Class<?> cl = CLASSES.get(str);
+		if (cl != null)
+			return cl;
+		
 		try {
-			return Class.forName(str);
+			cl = Class.forName(str);
 		} catch (ClassNotFoundException e) {
 			throw new ParseException("Unable to find the class " + str);
 		}
+		CLASSES.put(str, cl);
+		
+		return cl;
+	}
+	
+	/**
+	 * @return a synchronized map keeping the {@value #MAX_CACHED_CLASSES} entries used last
+	 */
+	private static <K, V> Map<K, V> boundedCache() {
+		return Collections.synchronizedMap(new LinkedHashMap<K, V>(16, 0.75f, true) {
+			
+			private static final long serialVersionUID = -3095120743651640378L;
+			
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+				return size() > MAX_CACHED_CLASSES;
+			}
+		});
 	}
 	
 	public static Date createDate(String str) {
@@ -84,7 +351,64 @@ public class TypeHandler {
 		return new File(str);
 	}
 	
-	public static File[] createFiles(String str) {
-		throw new UnsupportedOperationException("Not yet implemented");
+	/**
+	 * Opens an existing file, the value of an option of type {@link PatternOptionBuilder#EXISTING_FILE_VALUE}.
+	 * 
+	 * @param str the path of the file
+	 * @return the stream reading the file, to be closed by the caller
+	 * @throws ParseException if the file does not exist or cannot be read
+	 */
+	public static FileInputStream openFile(String str) throws ParseException {
+		try {
+			return new FileInputStream(str);
+		} catch (FileNotFoundException e) {
+			throw new ParseException("Unable to find file: " + str);
+		}
+	}
+	
+	/**
+	 * Expands a glob pattern to the files it matches.
+	 * <p>
+	 * The files are all held by the returned array, see {@link #expandFiles(String)} to go through them as they are 
+	 * found.
+	 * 
+	 * @param str the pattern
+	 * @return the matching files
+	 * @throws ParseException if the pattern is invalid or a directory cannot be read
+	 */
+	public static File[] createFiles(String str) throws ParseException {
+		try (Stream<Path> paths = new FileGlob(str).stream()) {
+			return paths.map(Path::toFile).toArray(File[]::new);
+		} catch (UncheckedIOException e) {
+			throw new ParseException("Unable to expand the files " + str + ": " + e.getCause().getMessage());
+		}
+	}
+	
+	/**
+	 * Expands a glob pattern such as <code>logs/**&#47;*.gz</code> lazily: the directories are walked as the stream 
+	 * is consumed, so that the first files are available before the walk ends and the matches are not held in 
+	 * memory. The pattern follows the syntax of {@link java.nio.file.FileSystem#getPathMatcher}, a pattern without
+	 * wildcard stands for the file itself if it exists.
+	 * 
+	 * @param str the pattern, its segments separated by <code>/</code>
+	 * @return the matching paths, the stream must be closed; an unreadable directory throws an 
+	 * <code>UncheckedIOException</code>
+	 * @throws ParseException if the pattern is invalid
+	 */
+	public static Stream<Path> expandFiles(String str) throws ParseException {
+		return new FileGlob(str).stream();
+	}
+	
+	/**
+	 * Expands a glob pattern as {@link #expandFiles(String)}, the directories being listed in parallel by 
+	 * <code>pool</code> when the stream needs more matches. Nothing is walked while the stream is not consumed.
+	 * 
+	 * @param str the pattern, its segments separated by <code>/</code>
+	 * @param pool the pool listing the directories
+	 * @return the matching paths in no particular order, the stream must be closed
+	 * @throws ParseException if the pattern is invalid
+	 */
+	public static Stream<Path> expandFiles(String str, ForkJoinPool pool) throws ParseException {
+		return new FileGlob(str).stream(pool);
 	}
 }
@@ -19,6 +19,41 @@ final class Util {
 		return str;
 	}
 	
+	/**
+	 * Returns the number of hyphens <code>str</code> would lose in {@link #stripLeadingHyphens(String)}, without
+	 * creating a new string.
+	 * 
+	 * @param str
+	 * @return 2 for "--", 1 for "-", 0 otherwise
+	 */
+	static int leadingHyphens(CharSequence str) {
+		int length = str.length();
+		if (length > 0 && str.charAt(0) == '-')
+			return length > 1 && str.charAt(1) == '-' ? 2 : 1;
+		
+		return 0;
+	}
+	
+	/**
+	 * Check if <code>str</code> equals the characters of <code>seq</code> between <code>start</code> and <code>end</code>
+	 * 
+	 * @param str
+	 * @param seq
+	 * @param start
+	 * @param end
+	 * @return
+	 */
+	static boolean regionEquals(String str, CharSequence seq, int start, int end) {
+		if (str == null || str.length() != end - start)
+			return false;
+		for (int i = 0; i < str.length(); i++) {
+			if (str.charAt(i) != seq.charAt(start + i))
+				return false;
+		}
+		
+		return true;
+	}
+	
 	/**
 	 * Remove the leading and trailing quotes from <code>str</code>
 	 * 
@@ -27,8 +62,8 @@ final class Util {
 	 */
 	static String stripLeadingAndTrailingQuotes(String str) {
 		int length = str.length();
-		if (length > 1 && str.startsWith("\"") && str.endsWith("\"") 
-				&& str.substring(1, length - 1).indexOf('"') == -1) {
+		if (length > 1 && str.charAt(0) == '"' && str.charAt(length - 1) == '"' 
+				&& str.indexOf('"', 1) == length - 1) {
 			return str.substring(1, length - 1);
 		}
 		
@@ -0,0 +1,16 @@
+package com.commandlineparser.entity;
+
+/**
+ * The layer a value of a {@link CommandLine} comes from, see {@link DefaultSources}. The layers are listed from the
+ * highest priority to the lowest: a layer is only consulted for the options absent from the layers above it.
+ */
+public enum ValueSource {
+	/** the arguments of the command line */
+	COMMAND_LINE,
+	/** the environment variables */
+	ENVIRONMENT,
+	/** the properties files */
+	PROPERTIES,
+	/** the built-in defaults of the application */
+	DEFAULTS
+}
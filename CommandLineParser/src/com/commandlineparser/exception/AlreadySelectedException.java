@@ -17,8 +17,34 @@ public class AlreadySelectedException extends ParseException {
 		super(message);
 	}
 	
+	/**
+	 * @deprecated the parser does not record the selected option in the group, whose {@link OptionGroup#getSelected()}
+	 *     is <code>null</code> unless it was set by hand: use {@link #AlreadySelectedException(OptionGroup, Option, String)}
+	 */
+	@Deprecated
 	public AlreadySelectedException(OptionGroup group, Option option) {
-		this("The option '" + option.getKey() + "' was specified but an option from this group has been selected: '" + group.getSelected() + "'");
+		this(group, option, group.getSelected());
+	}
+	
+	/**
+	 * @param group the group of the option
+	 * @param option the option that triggered the exception
+	 * @param selected the key of the option already selected in the group
+	 */
+	public AlreadySelectedException(OptionGroup group, Option option, String selected) {
+		this(group, option, selected, true);
+	}
+	
+	/**
+	 * @param group the group of the option
+	 * @param option the option that triggered the exception
+	 * @param selected the key of the option already selected in the group
+	 * @param writableStackTrace if <tt>false</tt>, the stack trace is not recorded
+	 */
+	public AlreadySelectedException(OptionGroup group, Option option, String selected, boolean writableStackTrace) {
+		super(createMessage(option, selected), writableStackTrace);
+		this.group = group;
+		this.option = option;
 	}
 	
 	public OptionGroup getOptionGroup() {
@@ -28,5 +54,15 @@ public class AlreadySelectedException extends ParseException {
 	public Option getOption() {
 		return option;
 	}
+	
+	/**
+	 * @param option the option that triggered the exception
+	 * @param selected the key of the option already selected in the group
+	 * @return the message of the exception
+	 */
+	public static String createMessage(Option option, String selected) {
+		return "The option '" + option.getKey() + "' was specified but an option from this group has been selected: '" 
+				+ selected + "'";
+	}
 
 }
@@ -16,8 +16,20 @@ public class AmbiguousOptionException extends UnrecognizedOptionException {
 
 	private final Collection<String> matchingOptions;
 	
+	/** the message, built on first use */
+	private String message;
+	
 	public AmbiguousOptionException(String option, Collection<String> matchingOptions) {
-		super(createMessage(option, matchingOptions), option);
+		this(option, matchingOptions, true);
+	}
+	
+	/**
+	 * @param option the partial name
+	 * @param matchingOptions the long names it matches
+	 * @param writableStackTrace if <tt>false</tt>, the stack trace is not recorded
+	 */
+	public AmbiguousOptionException(String option, Collection<String> matchingOptions, boolean writableStackTrace) {
+		super(null, option, writableStackTrace);
 		this.matchingOptions = matchingOptions;
 	}
 	
@@ -25,7 +37,20 @@ public class AmbiguousOptionException extends UnrecognizedOptionException {
 		return matchingOptions;
 	}
 	
-	private static String createMessage(String option, Collection<String> matchingOptions) {
+	@Override
+	public String getMessage() {
+		if (message == null)
+			message = createMessage(getOption(), matchingOptions);
+		
+		return message;
+	}
+	
+	/**
+	 * @param option the partial name
+	 * @param matchingOptions the long names it matches
+	 * @return the message of the exception
+	 */
+	public static String createMessage(String option, Collection<String> matchingOptions) {
 		StringBuilder sb = new StringBuilder("Ambiguous option : ");
 		sb.append(option);
 		sb.append("'  (could be: ");
@@ -20,11 +20,27 @@ public class MissingArgumentException extends ParseException {
 	}
 	
 	public MissingArgumentException(Option option) {
-		this("Missing argument for option " + option.getKey());
+		this(option, true);
+	}
+	
+	/**
+	 * @param option the option missing its argument
+	 * @param writableStackTrace if <tt>false</tt>, the stack trace is not recorded
+	 */
+	public MissingArgumentException(Option option, boolean writableStackTrace) {
+		super(createMessage(option.getKey()), writableStackTrace);
 		this.option = option;
 	}
 	
 	public Option getOption() {
 		return option;
 	}
+	
+	/**
+	 * @param key the key of the option missing its argument
+	 * @return the message of the exception
+	 */
+	public static String createMessage(String key) {
+		return "Missing argument for option " + key;
+	}
 }
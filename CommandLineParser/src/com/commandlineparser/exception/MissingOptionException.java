@@ -16,12 +16,24 @@ public class MissingOptionException extends ParseException {
 
 	private List missingOptions;
 	
+	/** the message, built on first use when the exception was created from the missing options */
+	private String message;
+	
 	public MissingOptionException(String message) {
 		super(message);
+		this.message = message;
 	}
 	
 	public MissingOptionException(List missingOptions) {
-		this(createMessage(missingOptions));
+		this(missingOptions, true);
+	}
+	
+	/**
+	 * @param missingOptions the keys of the options and the groups not found
+	 * @param writableStackTrace if <tt>false</tt>, the stack trace is not recorded
+	 */
+	public MissingOptionException(List<?> missingOptions, boolean writableStackTrace) {
+		super(null, writableStackTrace);
 		this.missingOptions = missingOptions;
 	}
 	
@@ -29,7 +41,19 @@ public class MissingOptionException extends ParseException {
 		return missingOptions;
 	}
 	
-	private static String createMessage(List<?> missingOptions) {
+	@Override
+	public String getMessage() {
+		if (message == null && missingOptions != null)
+			message = createMessage(missingOptions);
+		
+		return message;
+	}
+	
+	/**
+	 * @param missingOptions the keys of the options and the groups not found
+	 * @return the message of the exception
+	 */
+	public static String createMessage(List<?> missingOptions) {
 		StringBuilder buf = new StringBuilder("Missing required option");
 		buf.append(missingOptions.size() == 1 ? "" : "s");
 		buf.append(": ");
@@ -18,4 +18,15 @@ public class ParseException extends Exception {
 	public ParseException(String message) {
 		super(message);
 	}
+	
+	/**
+	 * Construct a new <code>ParseException</code> with the specified detail message. A parse exception reports a user
+	 * error rather than a bug, skipping the stack trace makes it much cheaper to create.
+	 * 
+	 * @param message
+	 * @param writableStackTrace if <tt>false</tt>, neither the stack trace nor the suppressed exceptions are recorded
+	 */
+	public ParseException(String message, boolean writableStackTrace) {
+		super(message, null, writableStackTrace, writableStackTrace);
+	}
 }
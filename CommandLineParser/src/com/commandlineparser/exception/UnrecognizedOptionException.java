@@ -18,11 +18,28 @@ public class UnrecognizedOptionException extends ParseException {
 	}
 	
 	public UnrecognizedOptionException(String message, String option) {
-		this(message);
+		this(message, option, true);
+	}
+	
+	/**
+	 * @param message
+	 * @param option the unrecognized option
+	 * @param writableStackTrace if <tt>false</tt>, the stack trace is not recorded
+	 */
+	public UnrecognizedOptionException(String message, String option, boolean writableStackTrace) {
+		super(message, writableStackTrace);
 		this.option = option;
 	}
 	
 	public String getOption() {
 		return option;
 	}
+	
+	/**
+	 * @param option the unrecognized option
+	 * @return the message reporting the option, as the parser creates it
+	 */
+	public static String createMessage(String option) {
+		return "Unrecognized option: " + option;
+	}
 }
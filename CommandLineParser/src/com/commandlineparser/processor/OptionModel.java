@@ -0,0 +1,53 @@
+package com.commandlineparser.processor;
+
+/**
+ * An option read from a field annotated with {@link com.commandlineparser.annotation.CommandLineOption}.
+ */
+final class OptionModel {
+
+	/** the kinds of field, which set the number of arguments of the option */
+	enum Kind {
+		FLAG, STRING, INT, LONG, DOUBLE, FILE, ARRAY, LIST;
+		
+		boolean isMultiValued() {
+			return this == ARRAY || this == LIST;
+		}
+	}
+	
+	final int id;
+	final String field;
+	final Kind kind;
+	final String opt;
+	final String longOpt;
+	final String description;
+	final boolean required;
+	final String group;
+	
+	/** the position of the group of the option, -1 if it has none */
+	int groupIndex = -1;
+	
+	OptionModel(int id, String field, Kind kind, String opt, String longOpt, String description, boolean required, String group) {
+		this.id = id;
+		this.field = field;
+		this.kind = kind;
+		this.opt = opt;
+		this.longOpt = longOpt;
+		this.description = description;
+		this.required = required;
+		this.group = group;
+	}
+	
+	String getKey() {
+		return opt != null ? opt : longOpt;
+	}
+	
+	/**
+	 * @return the number of arguments of the option as {@link com.commandlineparser.entity.Option#getNumberOfArgs()}
+	 */
+	int getNumberOfArgs() {
+		if (kind == Kind.FLAG)
+			return 0;
+		
+		return kind.isMultiValued() ? -2 : 1;
+	}
+}
@@ -0,0 +1,222 @@
+package com.commandlineparser.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+import com.commandlineparser.annotation.CommandLineArguments;
+import com.commandlineparser.annotation.CommandLineOption;
+import com.commandlineparser.annotation.CommandLineOptions;
+
+/**
+ * Generates a dedicated parser for each class annotated with {@link CommandLineOptions}.
+ * <p>
+ * The generated parser parses as {@link com.commandlineparser.entity.DefaultParser} does with the options declared by
+ * the class, but everything the default parser derives from the options at runtime is computed here: the short names
+ * are resolved by <code>switch</code> statements and the abbreviations of the long names by a binary search over the
+ * sorted names, the required options and the groups are checked
+ * against tables, and the values are converted and assigned to the fields directly.
+ */
+public class OptionsProcessor extends AbstractProcessor {
+
+	@Override
+	public Set<String> getSupportedAnnotationTypes() {
+		return Collections.singleton(CommandLineOptions.class.getName());
+	}
+	
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+	
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for (Element element : roundEnv.getElementsAnnotatedWith(CommandLineOptions.class)) {
+			if (element.getKind() != ElementKind.CLASS) {
+				error(element, "@CommandLineOptions only applies to classes");
+				continue;
+			}
+			
+			TypeElement type = (TypeElement) element;
+			try {
+				generate(type);
+			} catch (IOException e) {
+				error(type, "Unable to write the parser: " + e.getMessage());
+			}
+		}
+		
+		return true;
+	}
+	
+	private void generate(TypeElement type) throws IOException {
+		CommandLineOptions spec = type.getAnnotation(CommandLineOptions.class);
+		List<OptionModel> options = new ArrayList<>();
+		List<String> groups = new ArrayList<>();
+		String arguments = null;
+		OptionModel.Kind argumentsKind = null;
+		boolean valid = checkClass(type);
+		
+		for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+			CommandLineOption option = field.getAnnotation(CommandLineOption.class);
+			boolean isArguments = field.getAnnotation(CommandLineArguments.class) != null;
+			if (option == null && !isArguments)
+				continue;
+			
+			Set<Modifier> modifiers = field.getModifiers();
+			if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.FINAL)) {
+				error(field, "An annotated field must be neither private, static nor final");
+				valid = false;
+				continue;
+			}
+			
+			OptionModel.Kind kind = kindOf(field.asType().toString());
+			if (isArguments) {
+				if (arguments != null || (kind != OptionModel.Kind.ARRAY && kind != OptionModel.Kind.LIST)) {
+					error(field, "A single String[] or List<String> field receives the arguments");
+					valid = false;
+				}
+				arguments = field.getSimpleName().toString();
+				argumentsKind = kind;
+				continue;
+			}
+			
+			if (kind == null) {
+				error(field, "Unsupported option type " + field.asType());
+				valid = false;
+				continue;
+			}
+			
+			String opt = option.opt().isEmpty() ? null : option.opt();
+			String longOpt = option.longOpt().isEmpty() ? null : option.longOpt();
+			if (opt == null && longOpt == null) {
+				error(field, "An option needs a short or a long name");
+				valid = false;
+				continue;
+			}
+			
+			String group = option.group().isEmpty() ? null : option.group();
+			OptionModel model = new OptionModel(options.size(), field.getSimpleName().toString(), kind, opt, longOpt,
+					option.description().isEmpty() ? null : option.description(), option.required() && group == null, group);
+			if (group != null) {
+				if (!groups.contains(group))
+					groups.add(group);
+				model.groupIndex = groups.indexOf(group);
+			}
+			options.add(model);
+		}
+		
+		valid &= checkNames(type, options);
+		for (String group : spec.requiredGroups()) {
+			if (!groups.contains(group)) {
+				error(type, "The required group " + group + " has no option");
+				valid = false;
+			}
+		}
+		if (!valid)
+			return;
+		
+		String packageName = packageOf(type).getQualifiedName().toString();
+		String parserName = spec.parserName().isEmpty() ? type.getSimpleName() + "Parser" : spec.parserName();
+		String qualifiedName = packageName.isEmpty() ? parserName : packageName + "." + parserName;
+		
+		ParserWriter writer = new ParserWriter(packageName, parserName, type.getQualifiedName().toString(), options, groups,
+				new HashSet<>(Arrays.asList(spec.requiredGroups())), arguments, argumentsKind);
+		JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, type);
+		try (Writer out = file.openWriter()) {
+			out.write(writer.write());
+		}
+	}
+	
+	private boolean checkClass(TypeElement type) {
+		if (type.getModifiers().contains(Modifier.PRIVATE) || type.getModifiers().contains(Modifier.ABSTRACT)) {
+			error(type, "An options class must be neither private nor abstract");
+			return false;
+		}
+		if (type.getNestingKind().isNested() && !type.getModifiers().contains(Modifier.STATIC)) {
+			error(type, "A nested options class must be static");
+			return false;
+		}
+		
+		for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+			if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE))
+				return true;
+		}
+		error(type, "An options class needs a constructor without parameters");
+		return false;
+	}
+	
+	private boolean checkNames(TypeElement type, List<OptionModel> options) {
+		Set<String> shortNames = new HashSet<>();
+		Set<String> longNames = new HashSet<>();
+		boolean valid = true;
+		for (OptionModel option : options) {
+			if (option.opt != null && !shortNames.add(option.opt)) {
+				error(type, "Duplicate option " + option.opt);
+				valid = false;
+			}
+			if (option.longOpt != null && !longNames.add(option.longOpt)) {
+				error(type, "Duplicate option " + option.longOpt);
+				valid = false;
+			}
+		}
+		
+		return valid;
+	}
+	
+	private static OptionModel.Kind kindOf(String type) {
+		switch (type) {
+		case "boolean":
+		case "java.lang.Boolean":
+			return OptionModel.Kind.FLAG;
+		case "java.lang.String":
+			return OptionModel.Kind.STRING;
+		case "int":
+		case "java.lang.Integer":
+			return OptionModel.Kind.INT;
+		case "long":
+		case "java.lang.Long":
+			return OptionModel.Kind.LONG;
+		case "double":
+		case "java.lang.Double":
+			return OptionModel.Kind.DOUBLE;
+		case "java.io.File":
+			return OptionModel.Kind.FILE;
+		case "java.lang.String[]":
+			return OptionModel.Kind.ARRAY;
+		case "java.util.List<java.lang.String>":
+			return OptionModel.Kind.LIST;
+		default:
+			return null;
+		}
+	}
+	
+	private static PackageElement packageOf(Element element) {
+		while (element.getKind() != ElementKind.PACKAGE)
+			element = element.getEnclosingElement();
+		
+		return (PackageElement) element;
+	}
+	
+	private void error(Element element, String message) {
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+	}
+}
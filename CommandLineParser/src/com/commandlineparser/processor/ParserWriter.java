@@ -0,0 +1,753 @@
+package com.commandlineparser.processor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes the source of the parser of an options class.
+ * <p>
+ * The tables of the parser are computed from the options: the short keys are resolved by <code>switch</code>
+ * statements, the long names are sorted so that the names a prefix abbreviates are found by a binary search, and the
+ * long names that can prefix a value (-Xmx512m) are tried longest first. The size of the generated code grows with
+ * the number of options only, not with the length of their names. The token handling follows
+ * {@link com.commandlineparser.entity.DefaultParser} step by step.
+ */
+final class ParserWriter {
+
+	private static final int NONE = -1;
+	private static final int AMBIGUOUS = -2;
+	
+	private final String packageName;
+	private final String parserName;
+	private final String typeName;
+	private final List<OptionModel> options;
+	private final List<String> groups;
+	private final Set<String> requiredGroups;
+	private final String arguments;
+	private final OptionModel.Kind argumentsKind;
+	
+	private final StringBuilder out = new StringBuilder();
+	private int indent;
+	
+	ParserWriter(String packageName, String parserName, String typeName, List<OptionModel> options, List<String> groups,
+			Set<String> requiredGroups, String arguments, OptionModel.Kind argumentsKind) {
+		this.packageName = packageName;
+		this.parserName = parserName;
+		this.typeName = typeName;
+		this.options = options;
+		this.groups = groups;
+		this.requiredGroups = requiredGroups;
+		this.arguments = arguments;
+		this.argumentsKind = argumentsKind;
+	}
+	
+	String write() {
+		if (!packageName.isEmpty()) {
+			line("package " + packageName + ";");
+			line("");
+		}
+		line("import java.io.File;");
+		line("import java.util.ArrayList;");
+		line("import java.util.Arrays;");
+		line("import java.util.List;");
+		line("");
+		line("import com.commandlineparser.exception.AlreadySelectedException;");
+		line("import com.commandlineparser.exception.AmbiguousOptionException;");
+		line("import com.commandlineparser.exception.MissingArgumentException;");
+		line("import com.commandlineparser.exception.MissingOptionException;");
+		line("import com.commandlineparser.exception.ParseException;");
+		line("import com.commandlineparser.exception.UnrecognizedOptionException;");
+		line("");
+		line("/**");
+		line(" * The parser of {@link " + typeName + "}, generated from its annotations: it parses as");
+		line(" * <code>DefaultParser</code> does with the options declared by the class.");
+		line(" */");
+		open("public final class " + parserName + " {");
+		line("");
+		line("private static final int NONE = " + NONE + ";");
+		line("private static final int AMBIGUOUS = " + AMBIGUOUS + ";");
+		line("private static final int UNLIMITED = -2;");
+		line("");
+		line("/** the key, the long name, the number of arguments and the group of each option */");
+		line("private static final String[] KEYS = {" + join(keys()) + "};");
+		line("private static final String[] LONG_NAMES = {" + join(longNames()) + "};");
+		line("private static final int[] ARGS = {" + numbers(true) + "};");
+		line("private static final int[] GROUPS = {" + numbers(false) + "};");
+		line("");
+		line("/** the options having a long name, in the ascending order of the names */");
+		line("private static final int[] SORTED_IDS = {" + sortedIds() + "};");
+		line("");
+		open("private " + parserName + "() {");
+		close("}");
+		line("");
+		writeParse();
+		writeEngine();
+		writeShortId();
+		writeLongIds();
+		writeLongPrefixId();
+		writeOption();
+		writeValue();
+		writeCheckRequiredOptions();
+		writeConverters();
+		writeState();
+		close("}");
+		
+		return out.toString();
+	}
+	
+	private void writeParse() {
+		open("public static " + typeName + " parse(String[] arguments) throws ParseException {");
+		line("return parse(arguments, false);");
+		close("}");
+		line("");
+		line("/**");
+		line(" * @param arguments the command line arguments");
+		line(" * @param stopAtNonOption if <tt>true</tt>, an unrecognized argument stops the parsing");
+		line(" * @return a new instance holding the options found");
+		line(" * @throws ParseException");
+		line(" */");
+		open("public static " + typeName + " parse(String[] arguments, boolean stopAtNonOption) throws ParseException {");
+		line("State s = new State(new " + typeName + "(), stopAtNonOption);");
+		line("");
+		open("if (arguments != null) {");
+		line("for (String argument : arguments)");
+		line("\thandleToken(s, argument);");
+		close("}");
+		line("checkRequiredArgs(s);");
+		line("checkRequiredOptions(s);");
+		line("");
+		for (OptionModel option : options) {
+			if (option.kind == OptionModel.Kind.ARRAY) {
+				line("if (!s.values" + option.id + ".isEmpty())");
+				line("\ts.target." + option.field + " = s.values" + option.id + ".toArray(new String[s.values" + option.id + ".size()]);");
+			} else if (option.kind == OptionModel.Kind.LIST) {
+				line("if (!s.values" + option.id + ".isEmpty())");
+				line("\ts.target." + option.field + " = s.values" + option.id + ";");
+			}
+		}
+		if (arguments != null) {
+			if (argumentsKind == OptionModel.Kind.ARRAY)
+				line("s.target." + arguments + " = s.args.toArray(new String[s.args.size()]);");
+			else
+				line("s.target." + arguments + " = s.args;");
+		}
+		line("return s.target;");
+		close("}");
+		line("");
+	}
+	
+	/**
+	 * Writes the token handling, the same for every options class.
+	 */
+	private void writeEngine() {
+		open("private static void handleToken(State s, String token) throws ParseException {");
+		open("if (s.skipParsing) {");
+		line("s.args.add(token);");
+		reopen("} else if (\"--\".equals(token)) {");
+		line("s.skipParsing = true;");
+		reopen("} else if (s.current != NONE && acceptsArg(s)) {");
+		line("addValue(s, stripQuotes(token));");
+		reopen("} else if (token.startsWith(\"--\")) {");
+		line("handleLongOption(s, token);");
+		reopen("} else if (token.length() > 1 && token.charAt(0) == '-') {");
+		line("handleShortAndLongOption(s, token);");
+		reopen("} else {");
+		line("handleUnknownToken(s, token);");
+		close("}");
+		line("");
+		line("if (s.current != NONE && !acceptsArg(s))");
+		line("\ts.current = NONE;");
+		close("}");
+		line("");
+		
+		open("private static String stripQuotes(String token) {");
+		line("int length = token.length();");
+		open("if (length > 1 && token.charAt(0) == '\"' && token.charAt(length - 1) == '\"' && token.indexOf('\"', 1) == length - 1)");
+		line("return token.substring(1, length - 1);");
+		indent--;
+		line("");
+		line("return token;");
+		close("}");
+		line("");
+		
+		open("private static boolean acceptsArg(State s) {");
+		line("return ARGS[s.current] == UNLIMITED || s.valueCount < ARGS[s.current];");
+		close("}");
+		line("");
+		open("private static boolean requiresArg(State s) {");
+		line("return ARGS[s.current] == UNLIMITED ? s.valueCount == 0 : s.valueCount < ARGS[s.current];");
+		close("}");
+		line("");
+		
+		open("private static void checkRequiredArgs(State s) throws MissingArgumentException {");
+		line("if (s.current != NONE && requiresArg(s))");
+		line("\tthrow new MissingArgumentException(MissingArgumentException.createMessage(KEYS[s.current]));");
+		close("}");
+		line("");
+		
+		open("private static void handleUnknownToken(State s, String token) throws ParseException {");
+		line("if (token.startsWith(\"-\") && token.length() > 1 && !s.stopAtNonOption)");
+		line("\tthrow new UnrecognizedOptionException(UnrecognizedOptionException.createMessage(token), token);");
+		line("");
+		line("s.args.add(token);");
+		line("if (s.stopAtNonOption)");
+		line("\ts.skipParsing = true;");
+		close("}");
+		line("");
+		
+		open("private static void handleLongOption(State s, String token) throws ParseException {");
+		line("int equals = token.indexOf('=', 2);");
+		line("if (equals == -1)");
+		line("\thandleLongMatch(s, token, token.substring(2));");
+		line("else");
+		line("\thandleLongOptionWithEqual(s, token, 2, equals);");
+		close("}");
+		line("");
+		
+		open("private static void handleLongMatch(State s, String token, String name) throws ParseException {");
+		line("int id = abbreviationId(name);");
+		open("if (id == NONE) {");
+		line("handleUnknownToken(s, token);");
+		reopen("} else if (id == AMBIGUOUS) {");
+		line("throw new AmbiguousOptionException(token, candidates(name));");
+		reopen("} else {");
+		line("handleOption(s, id);");
+		close("}");
+		close("}");
+		line("");
+		
+		open("private static void handleLongOptionWithEqual(State s, String token, int nameStart, int equals) throws ParseException {");
+		line("String name = token.substring(nameStart, equals);");
+		line("int id = abbreviationId(name);");
+		open("if (id == NONE) {");
+		line("handleUnknownToken(s, token);");
+		reopen("} else if (id == AMBIGUOUS) {");
+		line("throw new AmbiguousOptionException(token.substring(0, equals), candidates(name));");
+		reopen("} else if (ARGS[id] != 0) {");
+		line("handleOption(s, id);");
+		line("addValue(s, token.substring(equals + 1));");
+		line("s.current = NONE;");
+		reopen("} else {");
+		line("handleUnknownToken(s, token);");
+		close("}");
+		close("}");
+		line("");
+		
+		open("private static void handleShortAndLongOption(State s, String token) throws ParseException {");
+		line("int equals = token.indexOf('=', 1);");
+		line("");
+		open("if (token.length() == 2) {    //-S");
+		line("int id = shortId(token.charAt(1));");
+		line("if (id != NONE)");
+		line("\thandleOption(s, id);");
+		line("else");
+		line("\thandleUnknownToken(s, token);");
+		reopen("} else if (equals == -1) {    //no equal sign found");
+		line("String name = token.substring(1);");
+		line("int id = shortId(name);");
+		open("if (id != NONE) {");
+		line("handleOption(s, id);");
+		reopen("} else if (abbreviationId(name) != NONE) {");
+		line("handleLongMatch(s, token, name);");
+		reopen("} else {    //look for a long prefix");
+		line("int prefix = longPrefixId(name);");
+		open("if (prefix != NONE && ARGS[prefix] != 0) {");
+		line("handleOption(s, prefix);");
+		line("addValue(s, name.substring(LONG_NAMES[prefix].length()));");
+		line("s.current = NONE;");
+		reopen("} else if (isJavaProperty(token)) {    //-SV1 (-Dflag)");
+		line("handleOption(s, optionId(token.charAt(1)));");
+		line("addValue(s, token.substring(2));");
+		line("s.current = NONE;");
+		reopen("} else {    //-S1S2S3 -S1S2V");
+		line("handleConcatenatedOptions(s, token);");
+		close("}");
+		close("}");
+		reopen("} else if (equals == 2) {    //-S=V");
+		line("int id = optionId(token.charAt(1));");
+		open("if (id != NONE && ARGS[id] != 0) {");
+		line("handleOption(s, id);");
+		line("addValue(s, token.substring(3));");
+		line("s.current = NONE;");
+		reopen("} else {");
+		line("handleUnknownToken(s, token);");
+		close("}");
+		reopen("} else if (isJavaProperty(token)) {    //-SV1=V2 (-Dkey=value)");
+		line("handleOption(s, optionId(token.charAt(1)));");
+		line("addValue(s, token.substring(2, equals));");
+		line("addValue(s, token.substring(equals + 1));");
+		reopen("} else {    //-L=V or -l=V");
+		line("handleLongOptionWithEqual(s, token, 1, equals);");
+		close("}");
+		close("}");
+		line("");
+		
+		open("private static boolean isJavaProperty(String token) {");
+		line("int id = optionId(token.charAt(1));");
+		line("");
+		line("return id != NONE && (ARGS[id] >= 2 || ARGS[id] == UNLIMITED);");
+		close("}");
+		line("");
+		
+		open("private static void handleConcatenatedOptions(State s, String token) throws ParseException {");
+		open("for (int i = 1; i < token.length(); i++) {");
+		line("int id = optionId(token.charAt(i));");
+		line("");
+		open("if (id != NONE) {");
+		line("handleOption(s, id);");
+		line("");
+		open("if (s.current != NONE && token.length() != i + 1) {");
+		line("//add the trail as an argument of the option");
+		line("addValue(s, token.substring(i + 1));");
+		line("break;");
+		close("}");
+		reopen("} else {");
+		line("handleUnknownToken(s, s.stopAtNonOption && i > 1 ? token.substring(i) : token);");
+		line("break;");
+		close("}");
+		close("}");
+		close("}");
+		line("");
+		
+		open("private static void handleOption(State s, int id) throws ParseException {");
+		line("//check the previous option before handling the next option");
+		line("checkRequiredArgs(s);");
+		line("");
+		line("int group = GROUPS[id];");
+		open("if (group != NONE) {");
+		line("String selected = s.selected[group];");
+		line("if (selected != null && !selected.equals(KEYS[id]))");
+		line("\tthrow new AlreadySelectedException(\"The option '\" + KEYS[id]");
+		line("\t\t\t+ \"' was specified but an option from this group has been selected: '\" + selected + \"'\");");
+		line("s.selected[group] = KEYS[id];");
+		close("}");
+		line("s.found[id] = true;");
+		line("option(s, id);");
+		line("");
+		line("s.valueCount = 0;");
+		line("s.current = ARGS[id] != 0 ? id : NONE;");
+		close("}");
+		line("");
+		
+		open("private static void addValue(State s, String value) throws ParseException {");
+		line("if (!acceptsArg(s))");
+		line("\tthrow new RuntimeException(\"Cannot add value, list full.\");");
+		line("");
+		line("s.valueCount++;");
+		line("value(s, s.current, value);");
+		close("}");
+		line("");
+	}
+	
+	private void writeShortId() {
+		Map<Character, Integer> chars = new LinkedHashMap<>();
+		Map<String, Integer> names = new LinkedHashMap<>();
+		//as in Options, the short names are the keys, the long name of an option without a short name
+		for (OptionModel option : options) {
+			String key = option.getKey();
+			if (key.length() == 1)
+				chars.put(key.charAt(0), option.id);
+			else
+				names.put(key, option.id);
+		}
+		
+		open("private static int shortId(char ch) {");
+		writeCharSwitch(chars);
+		close("}");
+		line("");
+		
+		open("private static int shortId(String name) {");
+		line("if (name.length() == 1)");
+		line("\treturn shortId(name.charAt(0));");
+		line("");
+		writeStringSwitch("name", names);
+		close("}");
+		line("");
+		
+		//a single character is looked up as a key first, then as a long name
+		Map<Character, Integer> all = new LinkedHashMap<>(chars);
+		for (OptionModel option : options) {
+			if (option.longOpt != null && option.longOpt.length() == 1 && !all.containsKey(option.longOpt.charAt(0)))
+				all.put(option.longOpt.charAt(0), option.id);
+		}
+		open("private static int optionId(char ch) {");
+		writeCharSwitch(all);
+		close("}");
+		line("");
+	}
+	
+	private void writeLongIds() {
+		line("/**");
+		line(" * @return the option named or uniquely abbreviated by <code>name</code>, AMBIGUOUS or NONE");
+		line(" */");
+		open("private static int abbreviationId(String name) {");
+		line("int from = firstName(name);");
+		line("int to = endOfPrefix(name, from);");
+		line("if (from == to)");
+		line("\treturn NONE;");
+		line("");
+		line("return to - from == 1 || LONG_NAMES[SORTED_IDS[from]].equals(name) ? SORTED_IDS[from] : AMBIGUOUS;");
+		close("}");
+		line("");
+		
+		line("/**");
+		line(" * @return the long names starting with <code>name</code>, in the order of the options");
+		line(" */");
+		open("private static List<String> candidates(String name) {");
+		line("int from = firstName(name);");
+		line("int[] ids = Arrays.copyOfRange(SORTED_IDS, from, endOfPrefix(name, from));");
+		line("Arrays.sort(ids);");
+		line("");
+		line("List<String> names = new ArrayList<>(ids.length);");
+		line("for (int id : ids)");
+		line("\tnames.add(LONG_NAMES[id]);");
+		line("");
+		line("return names;");
+		close("}");
+		line("");
+		
+		line("/**");
+		line(" * @return the position in SORTED_IDS of the first long name not lower than <code>name</code>");
+		line(" */");
+		open("private static int firstName(String name) {");
+		line("int low = 0;");
+		line("int high = SORTED_IDS.length;");
+		open("while (low < high) {");
+		line("int mid = (low + high) >>> 1;");
+		line("if (LONG_NAMES[SORTED_IDS[mid]].compareTo(name) < 0)");
+		line("\tlow = mid + 1;");
+		line("else");
+		line("\thigh = mid;");
+		close("}");
+		line("");
+		line("return low;");
+		close("}");
+		line("");
+		
+		line("/**");
+		line(" * @return the position in SORTED_IDS of the first long name after <code>from</code> not starting with <code>name</code>");
+		line(" */");
+		open("private static int endOfPrefix(String name, int from) {");
+		line("int low = from;");
+		line("int high = SORTED_IDS.length;");
+		open("while (low < high) {");
+		line("int mid = (low + high) >>> 1;");
+		line("if (LONG_NAMES[SORTED_IDS[mid]].startsWith(name))");
+		line("\tlow = mid + 1;");
+		line("else");
+		line("\thigh = mid;");
+		close("}");
+		line("");
+		line("return low;");
+		close("}");
+		line("");
+	}
+	
+	private void writeLongPrefixId() {
+		line("/**");
+		line(" * @return the option with the longest long name that is a prefix of <code>name</code>, leaving two characters");
+		line(" */");
+		open("private static int longPrefixId(String name) {");
+		open("for (int end = name.length() - 2; end > 1; end--) {");
+		line("String prefix = name.substring(0, end);");
+		line("int from = firstName(prefix);");
+		line("if (from < SORTED_IDS.length && LONG_NAMES[SORTED_IDS[from]].equals(prefix))");
+		line("\treturn SORTED_IDS[from];");
+		close("}");
+		line("");
+		line("return NONE;");
+		close("}");
+		line("");
+	}
+	
+	private void writeOption() {
+		open("private static void option(State s, int id) {");
+		open("switch (id) {");
+		for (OptionModel option : options) {
+			if (option.kind == OptionModel.Kind.FLAG) {
+				line("case " + option.id + ":");
+				line("\ts.target." + option.field + " = true;");
+				line("\tbreak;");
+			}
+		}
+		line("default:");
+		line("\tbreak;");
+		close("}");
+		close("}");
+		line("");
+	}
+	
+	private void writeValue() {
+		open("private static void value(State s, int id, String value) throws ParseException {");
+		open("switch (id) {");
+		for (OptionModel option : options) {
+			if (option.kind == OptionModel.Kind.FLAG)
+				continue;
+			
+			line("case " + option.id + ":");
+			if (option.kind.isMultiValued()) {
+				line("\ts.values" + option.id + ".add(value);");
+			} else {
+				//the first value wins, as CommandLine.getOptionValue returns it
+				line("\tif (!s.assigned[" + option.id + "]) {");
+				line("\t\ts.assigned[" + option.id + "] = true;");
+				line("\t\ts.target." + option.field + " = " + conversion(option.kind) + ";");
+				line("\t}");
+			}
+			line("\tbreak;");
+		}
+		line("default:");
+		line("\tbreak;");
+		close("}");
+		close("}");
+		line("");
+	}
+	
+	private void writeCheckRequiredOptions() {
+		open("private static void checkRequiredOptions(State s) throws MissingOptionException {");
+		line("List<Object> missing = new ArrayList<>();");
+		Set<Integer> groupsWritten = new HashSet<>();
+		for (OptionModel option : options) {
+			if (option.required) {
+				line("if (!s.found[" + option.id + "])");
+				line("\tmissing.add(" + quote(option.getKey()) + ");");
+			} else if (option.groupIndex != -1 && requiredGroups.contains(option.group) && groupsWritten.add(option.groupIndex)) {
+				line("if (s.selected[" + option.groupIndex + "] == null)");
+				line("\tmissing.add(" + quote(describeGroup(option.group)) + ");");
+			}
+		}
+		line("");
+		line("if (!missing.isEmpty())");
+		line("\tthrow new MissingOptionException(missing);");
+		close("}");
+		line("");
+	}
+	
+	private void writeConverters() {
+		open("private static int toInt(String value) throws ParseException {");
+		open("try {");
+		line("return Integer.parseInt(value);");
+		reopen("} catch (NumberFormatException e) {");
+		line("throw new ParseException(e.getMessage());");
+		close("}");
+		close("}");
+		line("");
+		open("private static long toLong(String value) throws ParseException {");
+		open("try {");
+		line("return Long.parseLong(value);");
+		reopen("} catch (NumberFormatException e) {");
+		line("throw new ParseException(e.getMessage());");
+		close("}");
+		close("}");
+		line("");
+		open("private static double toDouble(String value) throws ParseException {");
+		open("try {");
+		line("return Double.parseDouble(value);");
+		reopen("} catch (NumberFormatException e) {");
+		line("throw new ParseException(e.getMessage());");
+		close("}");
+		close("}");
+		line("");
+	}
+	
+	private void writeState() {
+		line("/**");
+		line(" * The state of a single parse.");
+		line(" */");
+		open("private static final class State {");
+		line("final " + typeName + " target;");
+		line("final boolean stopAtNonOption;");
+		line("final List<String> args = new ArrayList<>();");
+		line("final boolean[] found = new boolean[" + options.size() + "];");
+		line("final boolean[] assigned = new boolean[" + options.size() + "];");
+		line("final String[] selected = new String[" + groups.size() + "];");
+		for (OptionModel option : options) {
+			if (option.kind.isMultiValued())
+				line("final List<String> values" + option.id + " = new ArrayList<>();");
+		}
+		line("int current = NONE;");
+		line("int valueCount;");
+		line("boolean skipParsing;");
+		line("");
+		open("State(" + typeName + " target, boolean stopAtNonOption) {");
+		line("this.target = target;");
+		line("this.stopAtNonOption = stopAtNonOption;");
+		close("}");
+		close("}");
+	}
+	
+	private static String conversion(OptionModel.Kind kind) {
+		switch (kind) {
+		case INT:
+			return "toInt(value)";
+		case LONG:
+			return "toLong(value)";
+		case DOUBLE:
+			return "toDouble(value)";
+		case FILE:
+			return "new File(value)";
+		default:
+			return "value";
+		}
+	}
+	
+	/**
+	 * @return the description of a group in a missing option message, as {@link com.commandlineparser.entity.OptionGroup#toString()}
+	 */
+	private String describeGroup(String group) {
+		StringBuilder sb = new StringBuilder("[");
+		for (OptionModel option : options) {
+			if (!group.equals(option.group))
+				continue;
+			
+			if (sb.length() > 1)
+				sb.append(", ");
+			sb.append(option.opt != null ? "-" + option.opt : "--" + option.longOpt);
+			if (option.description != null)
+				sb.append(" ").append(option.description);
+		}
+		
+		return sb.append("]").toString();
+	}
+	
+	private void writeCharSwitch(Map<Character, Integer> ids) {
+		open("switch (ch) {");
+		for (Map.Entry<Character, Integer> entry : ids.entrySet()) {
+			line("case " + quote(entry.getKey()) + ":");
+			line("\treturn " + entry.getValue() + ";");
+		}
+		line("default:");
+		line("\treturn NONE;");
+		close("}");
+	}
+	
+	private void writeStringSwitch(String variable, Map<String, Integer> ids) {
+		open("switch (" + variable + ") {");
+		for (Map.Entry<String, Integer> entry : ids.entrySet()) {
+			line("case " + quote(entry.getKey()) + ":");
+			line("\treturn " + (entry.getValue() == AMBIGUOUS ? "AMBIGUOUS" : entry.getValue().toString()) + ";");
+		}
+		line("default:");
+		line("\treturn NONE;");
+		close("}");
+	}
+	
+	private List<String> keys() {
+		List<String> keys = new ArrayList<>();
+		for (OptionModel option : options)
+			keys.add(option.getKey());
+		
+		return keys;
+	}
+	
+	private List<String> longNames() {
+		List<String> names = new ArrayList<>();
+		for (OptionModel option : options)
+			names.add(option.longOpt);
+		
+		return names;
+	}
+	
+	/**
+	 * @return the ids of the options having a long name, in the ascending order of the names
+	 */
+	private String sortedIds() {
+		List<OptionModel> named = new ArrayList<>();
+		for (OptionModel option : options) {
+			if (option.longOpt != null)
+				named.add(option);
+		}
+		Collections.sort(named, new Comparator<OptionModel>() {
+			@Override
+			public int compare(OptionModel o1, OptionModel o2) {
+				return o1.longOpt.compareTo(o2.longOpt);
+			}
+		});
+		
+		StringBuilder sb = new StringBuilder();
+		for (OptionModel option : named) {
+			if (sb.length() > 0)
+				sb.append(", ");
+			sb.append(option.id);
+		}
+		
+		return sb.toString();
+	}
+	
+	private String numbers(boolean args) {
+		StringBuilder sb = new StringBuilder();
+		for (OptionModel option : options) {
+			if (sb.length() > 0)
+				sb.append(", ");
+			sb.append(args ? option.getNumberOfArgs() : option.groupIndex);
+		}
+		
+		return sb.toString();
+	}
+	
+	private static String join(List<String> values) {
+		StringBuilder sb = new StringBuilder();
+		for (String value : values) {
+			if (sb.length() > 0)
+				sb.append(", ");
+			sb.append(value == null ? "null" : quote(value));
+		}
+		
+		return sb.toString();
+	}
+	
+	private static String quote(String value) {
+		StringBuilder sb = new StringBuilder("\"");
+		for (char ch : value.toCharArray())
+			escape(ch, '"', sb);
+		
+		return sb.append('"').toString();
+	}
+	
+	private static String quote(char ch) {
+		return escape(ch, '\'', new StringBuilder("'")).append('\'').toString();
+	}
+	
+	private static StringBuilder escape(char ch, char quote, StringBuilder sb) {
+		if (ch == quote || ch == '\\')
+			sb.append('\\').append(ch);
+		else if (ch < ' ')
+			sb.append(String.format("\\%03o", (int) ch));
+		else if (ch > '~')
+			sb.append(String.format("\\u%04x", (int) ch));
+		else
+			sb.append(ch);
+		
+		return sb;
+	}
+	
+	private void open(String text) {
+		line(text);
+		indent++;
+	}
+	
+	private void reopen(String text) {
+		indent--;
+		open(text);
+	}
+	
+	private void close(String text) {
+		indent--;
+		line(text);
+	}
+	
+	/**
+	 * Writes a line at the current indentation, blank lines are indented too.
+	 */
+	private void line(String text) {
+		for (int i = 0; i < indent; i++)
+			out.append('\t');
+		out.append(text).append('\n');
+	}
+}
@@ -0,0 +1,139 @@
+package com.commandlineparser.entity;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks the help against the text printed by the renderer before the single-pass rewrap, and the single-pass
+ * rewrap against the overridable methods a subclass goes through.
+ */
+public class HelpFormatterTest {
+
+	private static final String HELP_74 = "usage: ls [-a] [-b <SIZE>] [-c | -x] [--color <WHEN>] -q\n"
+			+ "List information about the files.\n"
+			+ "  -a,--all                  do not hide entries starting with .\n"
+			+ "  -b,--block-size <SIZE>    use SIZE-byte blocks, the size is given in\n"
+			+ "                            bytes and may be followed by a unit\n"
+			+ "  -c,--create               create\n"
+			+ "     --color <WHEN>         colorize the output\n"
+			+ "  -q                        quiet\n"
+			+ "  -x                        extract\n"
+			+ "Report bugs.\n";
+	
+	private static final String HELP_44 = "usage: ls [-a] [-b <SIZE>] [-c | -x]\n"
+			+ "       [--color <WHEN>] -q\n"
+			+ "List information about the files.\n"
+			+ "  -a,--all                  do not hide\n"
+			+ "                            entries starting\n"
+			+ "                            with .\n"
+			+ "  -b,--block-size <SIZE>    use SIZE-byte\n"
+			+ "                            blocks, the size\n"
+			+ "                            is given in\n"
+			+ "                            bytes and may be\n"
+			+ "                            followed by a\n"
+			+ "                            unit\n"
+			+ "  -c,--create               create\n"
+			+ "     --color <WHEN>         colorize the\n"
+			+ "                            output\n"
+			+ "  -q                        quiet\n"
+			+ "  -x                        extract\n"
+			+ "Report bugs.\n";
+	
+	private static Options options() {
+		Options options = new Options();
+		options.addOption("a", "all", false, "do not hide entries starting with .");
+		options.addOption(Option.builder("b").longOpt("block-size").hasArg().argName("SIZE")
+				.desc("use SIZE-byte blocks, the size is given in bytes and may be followed by a unit").build());
+		options.addOption(Option.builder().longOpt("color").hasArg().optionalArg(true).argName("WHEN").desc("colorize the output").build());
+		options.addOption(Option.builder("q").desc("quiet").required().build());
+		OptionGroup group = new OptionGroup();
+		group.addOption(Option.builder("x").desc("extract").build());
+		group.addOption(Option.builder("c").longOpt("create").desc("create").build());
+		options.addOptionGroup(group);
+		
+		return options;
+	}
+	
+	/**
+	 * Options with descriptions made of long words, tabs, line breaks and runs of spaces.
+	 */
+	private static Options randomOptions(int count) {
+		String[] words = {"alpha", "b", "verylongwordwithoutanybreaksatallwhatsoever_and_more", "x\ty", "line\nbreak", "  spaced  ",
+				"end.", "\r", "tabs\t\t"};
+		Random random = new Random(42);
+		Options options = new Options();
+		for (int i = 0; i < count; i++) {
+			StringBuilder description = new StringBuilder();
+			int length = random.nextInt(40);
+			for (int j = 0; j < length; j++)
+				description.append(words[random.nextInt(words.length)]).append(random.nextInt(5) == 0 ? "  " : " ");
+			
+			Option.Builder builder = Option.builder("o" + i).desc(i % 7 == 0 ? null : description.toString());
+			if (i % 3 == 0)
+				builder.longOpt("long-option-" + i);
+			if (i % 4 == 0)
+				builder.hasArg().argName(i % 8 == 0 ? "" : "val");
+			options.addOption(builder.build());
+		}
+		OptionGroup group = new OptionGroup();
+		group.addOption(Option.builder("ga").build());
+		group.addOption(Option.builder("gb").longOpt("gbee").hasArg().build());
+		options.addOptionGroup(group);
+		
+		return options;
+	}
+	
+	private static String help(HelpFormatter formatter, int width, String header, Options options, int leftPad, int descPad,
+			String footer) {
+		formatter.setNewLine("\n");
+		StringWriter out = new StringWriter();
+		PrintWriter pw = new PrintWriter(out);
+		formatter.printHelp(pw, width, "ls", header, options, leftPad, descPad, footer, true);
+		pw.flush();
+		
+		return out.toString();
+	}
+	
+	@Test
+	public void printsTheHelpOfThePreviousRenderer() {
+		for (HelpFormatter formatter : new HelpFormatter[] {new HelpFormatter(), new HelpFormatter() {}}) {
+			assertEquals(HELP_74, help(formatter, 74, "List information about the files.", options(), 2, 4, "Report bugs."));
+			assertEquals(HELP_44, help(formatter, 44, "List information about the files.", options(), 2, 4, "Report bugs."));
+		}
+	}
+	
+	@Test
+	public void printsTheSameHelpTwice() {
+		HelpFormatter formatter = new HelpFormatter();
+		Options options = options();
+		
+		assertEquals(HELP_74, help(formatter, 74, "List information about the files.", options, 2, 4, "Report bugs."));
+		assertEquals(HELP_74, help(formatter, 74, "List information about the files.", options, 2, 4, "Report bugs."));
+		options.addOption("z", "last");
+		assertEquals(HELP_74.replace("  -x                        extract\n",
+				"  -x                        extract\n  -z                        last\n").replace("-q\n", "-q  [-z]\n"),
+				help(formatter, 74, "List information about the files.", options, 2, 4, "Report bugs."));
+	}
+	
+	@Test
+	public void rewrapsAsTheOverridableMethods() {
+		Options options = randomOptions(30);
+		String header = "Header line one that is long enough to wrap around at narrow widths\n\nsecond\r\nthird\r";
+		String footer = "Footer\twith tab and a long tail that keeps going and going";
+		
+		for (int width : new int[] {5, 10, 20, 40, 74, 120}) {
+			for (int leftPad : new int[] {0, 1, 4}) {
+				for (int descPad : new int[] {0, 3, 30}) {
+					String expected = help(new HelpFormatter() {}, width, header, options, leftPad, descPad, footer);
+					assertEquals(width + " " + leftPad + " " + descPad, expected,
+							help(new HelpFormatter(), width, header, options, leftPad, descPad, footer));
+				}
+			}
+		}
+	}
+}
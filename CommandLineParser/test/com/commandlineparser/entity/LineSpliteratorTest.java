@@ -0,0 +1,136 @@
+package com.commandlineparser.entity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.commandlineparser.exception.ParseException;
+
+/**
+ * Checks that the lines read by {@link DefaultParser#parseLines} are parsed as the same lines given one by one,
+ * whether the file is split or not.
+ */
+public class LineSpliteratorTest {
+
+	private Path file;
+	private List<String> lines;
+	private Options options;
+	
+	@Before
+	public void writeFile() throws IOException {
+		options = new Options();
+		options.addOption("a", "alpha", true, "alpha");
+		options.addOption("b", false, "bravo");
+		options.addOption(Option.builder("D").hasArgs().valueSeparator().build());
+		
+		lines = new ArrayList<>();
+		file = Files.createTempFile("lines", ".txt");
+		try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			for (int i = 0; i < 20000; i++) {
+				String line;
+				switch (i % 5) {
+				case 0:
+					line = "-a " + i + " -b file" + i;
+					break;
+				case 1:
+					line = "--alpha=\"value " + i + "\" -Dk" + i + "=v";
+					break;
+				case 2:
+					line = "-x" + i;
+					break;
+				case 3:
+					line = "";
+					break;
+				default:
+					line = "-b \u00e9t\u00e9" + i;
+				}
+				lines.add(line);
+				out.write(line);
+				out.write(i % 7 == 0 ? "\r\n" : "\n");
+			}
+		}
+	}
+	
+	@After
+	public void deleteFile() throws IOException {
+		Files.delete(file);
+	}
+	
+	private static String describe(ParsedLine line) {
+		if (!line.isSuccess())
+			return line.getLine() + " ! " + line.getException().getMessage();
+		
+		StringBuilder sb = new StringBuilder(line.getLine()).append(" :");
+		for (Option option : line.getCommandLine().getOptions())
+			sb.append(' ').append(option.getKey()).append('=').append(option.getValuesList());
+		
+		return sb.append(' ').append(line.getCommandLine().getArgList()).toString();
+	}
+	
+	private List<String> expected() {
+		DefaultParser parser = new DefaultParser();
+		List<String> expected = new ArrayList<>();
+		for (String line : lines) {
+			try {
+				CommandLine cmd = parser.parse(options, ShellTokenizer.split(line));
+				expected.add(describe(new ParsedLine(0, line, cmd, null)));
+			} catch (ParseException e) {
+				expected.add(describe(new ParsedLine(0, line, null, e)));
+			}
+		}
+		
+		return expected;
+	}
+	
+	@Test
+	public void sequentialStreamParsesEveryLine() throws IOException {
+		try (Stream<ParsedLine> parsed = new DefaultParser().parseLines(options, file)) {
+			assertEquals(expected(), parsed.map(LineSpliteratorTest::describe).collect(Collectors.toList()));
+		}
+	}
+	
+	@Test
+	public void parallelStreamParsesEveryLineInOrder() throws IOException {
+		try (Stream<ParsedLine> parsed = new DefaultParser().parseLines(options, file).parallel()) {
+			assertEquals(expected(), parsed.map(LineSpliteratorTest::describe).collect(Collectors.toList()));
+		}
+	}
+	
+	@Test
+	public void splitsAtALineBoundary() throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			LineSpliterator lines = new LineSpliterator(new DefaultParser(), options.compile(), null, false, channel, 0, channel.size());
+			Spliterator<ParsedLine> prefix = lines.trySplit();
+			assertNotNull(prefix);
+			
+			List<ParsedLine> first = new ArrayList<>();
+			prefix.forEachRemaining(first::add);
+			List<ParsedLine> second = new ArrayList<>();
+			lines.forEachRemaining(second::add);
+			
+			assertEquals(0, first.get(0).getOffset());
+			ParsedLine last = first.get(first.size() - 1);
+			long boundary = second.get(0).getOffset();
+			assertTrue(boundary > last.getOffset());
+			assertEquals(this.lines.size(), first.size() + second.size());
+			assertEquals(this.lines.get(first.size()), second.get(0).getLine());
+		}
+	}
+}
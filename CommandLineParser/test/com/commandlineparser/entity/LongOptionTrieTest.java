@@ -0,0 +1,181 @@
+package com.commandlineparser.entity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.commandlineparser.exception.AmbiguousOptionException;
+import com.commandlineparser.exception.ParseException;
+
+/**
+ * Checks the exact, abbreviated, ambiguous and prefix lookups of {@link LongOptionTrie}, directly and through the
+ * parser.
+ */
+public class LongOptionTrieTest {
+
+	private static final String[] NAMES = {"verbose", "version", "ver", "alpha", "alps", "a", "zeta"};
+	
+	private static Map<String, Option> options(String... names) {
+		Map<String, Option> map = new LinkedHashMap<>();
+		for (String name : names)
+			map.put(name, new Option(null, name, true, null));
+		
+		return map;
+	}
+	
+	private static LongOptionTrie.Match walk(LongOptionTrie trie, String name, int maxPrefix) {
+		LongOptionTrie.Match match = new LongOptionTrie.Match();
+		trie.walk(name, 0, name.length(), maxPrefix, match);
+		
+		return match;
+	}
+	
+	@Test
+	public void exactNameWinsOverLongerNames() {
+		Map<String, Option> map = options(NAMES);
+		LongOptionTrie trie = new LongOptionTrie(map.values());
+		
+		LongOptionTrie.Match match = walk(trie, "ver", -1);
+		assertSame(map.get("ver"), match.getOption());
+		assertFalse(match.isAmbiguous());
+		assertEquals(Arrays.asList("ver"), match.getCandidates());
+		
+		match = walk(trie, "a", -1);
+		assertSame(map.get("a"), match.getOption());
+		assertFalse(match.isAmbiguous());
+	}
+	
+	@Test
+	public void uniqueAbbreviationResolves() {
+		Map<String, Option> map = options(NAMES);
+		LongOptionTrie trie = new LongOptionTrie(map.values());
+		
+		assertSame(map.get("verbose"), walk(trie, "verb", -1).getOption());
+		assertSame(map.get("version"), walk(trie, "versi", -1).getOption());
+		assertSame(map.get("alpha"), walk(trie, "alph", -1).getOption());
+		assertSame(map.get("zeta"), walk(trie, "z", -1).getOption());
+	}
+	
+	@Test
+	public void ambiguousAbbreviationListsCandidatesInOrder() {
+		LongOptionTrie trie = new LongOptionTrie(options(NAMES).values());
+		
+		LongOptionTrie.Match match = walk(trie, "al", -1);
+		assertTrue(match.isAmbiguous());
+		assertNull(match.getOption());
+		assertEquals(Arrays.asList("alpha", "alps"), match.getCandidates());
+		
+		match = walk(trie, "ve", -1);
+		assertTrue(match.isAmbiguous());
+		assertEquals(Arrays.asList("verbose", "version", "ver"), match.getCandidates());
+		
+		List<Option> collected = new ArrayList<>();
+		match.collectOptions(collected);
+		assertEquals(3, collected.size());
+	}
+	
+	@Test
+	public void unknownNameMatchesNothing() {
+		LongOptionTrie trie = new LongOptionTrie(options(NAMES).values());
+		
+		for (String name : new String[] {"x", "verx", "alphas", "zz"}) {
+			LongOptionTrie.Match match = walk(trie, name, -1);
+			assertTrue(name, match.isEmpty());
+			assertNull(name, match.getOption());
+			assertEquals(name, 0, match.getCandidates().size());
+		}
+	}
+	
+	@Test
+	public void longestPrefixIsBoundedByMaxPrefix() {
+		Map<String, Option> map = options(NAMES);
+		LongOptionTrie trie = new LongOptionTrie(map.values());
+		
+		assertSame(map.get("alpha"), walk(trie, "alphaX", 10).getPrefix());
+		assertSame(map.get("a"), walk(trie, "alphaX", 4).getPrefix());
+		assertNull(walk(trie, "alphaX", 0).getPrefix());
+		assertSame(map.get("version"), walk(trie, "version2", Integer.MAX_VALUE).getPrefix());
+	}
+	
+	@Test
+	public void walksARangeOfTheToken() {
+		Map<String, Option> map = options(NAMES);
+		LongOptionTrie trie = new LongOptionTrie(map.values());
+		LongOptionTrie.Match match = new LongOptionTrie.Match();
+		
+		String token = "--alps=1";
+		trie.walk(token, 2, 6, -1, match);
+		assertSame(map.get("alps"), match.getOption());
+	}
+	
+	@Test
+	public void agreesWithAScanOfTheNames() {
+		Random random = new Random(3);
+		List<String> names = new ArrayList<>();
+		while (names.size() < 300) {
+			StringBuilder sb = new StringBuilder();
+			int length = 1 + random.nextInt(6);
+			for (int i = 0; i < length; i++)
+				sb.append((char) ('a' + random.nextInt(4)));
+			if (!names.contains(sb.toString()))
+				names.add(sb.toString());
+		}
+		Map<String, Option> map = options(names.toArray(new String[names.size()]));
+		LongOptionTrie trie = new LongOptionTrie(map.values());
+		
+		for (int q = 0; q < 2000; q++) {
+			StringBuilder sb = new StringBuilder();
+			int length = random.nextInt(7);
+			for (int i = 0; i < length; i++)
+				sb.append((char) ('a' + random.nextInt(5)));
+			String query = sb.toString();
+			
+			List<String> expected = new ArrayList<>();
+			if (map.containsKey(query)) {
+				expected.add(query);
+			} else {
+				for (String name : names) {
+					if (name.startsWith(query))
+						expected.add(name);
+				}
+			}
+			
+			LongOptionTrie.Match match = walk(trie, query, -1);
+			assertEquals(query, expected, match.getCandidates());
+			assertEquals(query, expected.size() > 1, match.isAmbiguous());
+			assertSame(query, expected.size() == 1 ? map.get(expected.get(0)) : null, match.getOption());
+		}
+	}
+	
+	@Test
+	public void parserReportsAmbiguousAndExactNames() throws ParseException {
+		Options options = new Options();
+		for (String name : NAMES)
+			options.addOption(Option.builder().longOpt(name).hasArg().build());
+		DefaultParser parser = new DefaultParser();
+		
+		assertEquals("1", parser.parse(options, new String[] {"--ver", "1"}).getOptionValue("ver"));
+		assertEquals("2", parser.parse(options, new String[] {"--verb=2"}).getOptionValue("verbose"));
+		try {
+			parser.parse(options, new String[] {"--al", "3"});
+			fail("--al is ambiguous");
+		} catch (AmbiguousOptionException e) {
+			assertEquals("--al", e.getOption());
+			assertEquals(Arrays.asList("alpha", "alps"), new ArrayList<>(e.getMatchingOptions()));
+		}
+		assertEquals(Arrays.asList("alpha", "alps"), options.compile().getMatchingOptions("--al"));
+		assertEquals(Arrays.asList("alpha", "alps"), options.getMatchingOptions("--al"));
+	}
+}
@@ -0,0 +1,75 @@
+package com.commandlineparser.entity;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks the perfect hash table of {@link NameIndex} against the map it is built from.
+ */
+public class NameIndexTest {
+
+	private static Map<String, Option> names(int count, long seed) {
+		Random random = new Random(seed);
+		Map<String, Option> map = new LinkedHashMap<>();
+		while (map.size() < count) {
+			StringBuilder sb = new StringBuilder();
+			int length = 1 + random.nextInt(12);
+			for (int i = 0; i < length; i++)
+				sb.append(random.nextInt(8) == 0 ? (char) (0x400 + random.nextInt(64)) : (char) ('a' + random.nextInt(26)));
+			String name = sb.toString();
+			map.put(name, new Option(null, name, false, null));
+		}
+		
+		return map;
+	}
+	
+	@Test
+	public void findsEveryName() {
+		for (int count : new int[] {1, 2, 7, 64, 1000, 5000}) {
+			Map<String, Option> map = names(count, count);
+			NameIndex index = new NameIndex(map);
+			for (Map.Entry<String, Option> entry : map.entrySet())
+				assertSame(entry.getKey(), entry.getValue(), index.get(entry.getKey()));
+		}
+	}
+	
+	@Test
+	public void findsNamesInsideATextRange() {
+		Map<String, Option> map = names(500, 42);
+		NameIndex index = new NameIndex(map);
+		for (Map.Entry<String, Option> entry : map.entrySet()) {
+			String token = "--" + entry.getKey() + "=value";
+			assertSame(entry.getValue(), index.get(token, 2, 2 + entry.getKey().length()));
+		}
+	}
+	
+	@Test
+	public void missesUnknownNames() {
+		Map<String, Option> map = names(1000, 7);
+		NameIndex index = new NameIndex(map);
+		Map<String, Option> others = names(2000, 8);
+		for (String name : others.keySet()) {
+			if (!map.containsKey(name))
+				assertNull(name, index.get(name));
+		}
+		for (String name : map.keySet()) {
+			String prefix = name.substring(0, name.length() - 1);
+			assertSame(map.get(prefix), index.get(name, 0, prefix.length()));
+			assertSame(map.get(name + "x"), index.get(name + "x"));
+		}
+		assertNull(index.get(""));
+	}
+	
+	@Test
+	public void emptyIndexFindsNothing() {
+		NameIndex index = new NameIndex(new LinkedHashMap<String, Option>());
+		assertNull(index.get("a"));
+		assertNull(index.get(""));
+	}
+}
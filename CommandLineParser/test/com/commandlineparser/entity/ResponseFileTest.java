@@ -0,0 +1,98 @@
+package com.commandlineparser.entity;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks the splitting of the response files and their cache.
+ */
+public class ResponseFileTest {
+
+	private Path dir;
+	
+	@Before
+	public void createDirectory() throws IOException {
+		dir = Files.createTempDirectory("responsefile");
+	}
+	
+	@After
+	public void deleteDirectory() throws IOException {
+		try (java.util.stream.Stream<Path> files = Files.list(dir)) {
+			for (Path file : (Iterable<Path>) files::iterator)
+				Files.delete(file);
+		}
+		Files.delete(dir);
+	}
+	
+	private Path write(String name, String text) throws IOException {
+		return Files.write(dir.resolve(name), text.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	@Test
+	public void splitsAsAShell() throws IOException {
+		Path file = write("args", "-a 1 \"two words\"\n'-b'\t--c=\u00e9t\u00e9\n");
+		
+		ResponseFile response = ResponseFile.read(file.toString());
+		assertEquals(file.toRealPath(), response.getPath());
+		assertNull(response.getError());
+		assertArrayEquals(new String[] {"-a", "1", "two words", "-b", "--c=\u00e9t\u00e9"}, response.getArguments().toArray());
+	}
+	
+	@Test
+	public void reportsAnUnclosedQuote() throws IOException {
+		Path file = write("broken", "-a \"open");
+		
+		ResponseFile response = ResponseFile.read(file.toString());
+		assertNull(response.getArguments());
+		assertNotNull(response.getError());
+	}
+	
+	@Test
+	public void unchangedFileIsReadOnce() throws IOException {
+		Path file = write("same", "-a 1");
+		
+		ResponseFile first = ResponseFile.read(file.toString());
+		assertSame(first, ResponseFile.read(file.toString()));
+	}
+	
+	@Test
+	public void changedFileIsReadAgain() throws IOException {
+		Path file = write("changed", "-a 1");
+		FileTime time = Files.getLastModifiedTime(file);
+		ResponseFile first = ResponseFile.read(file.toString());
+		
+		write("changed", "-b 22");
+		Files.setLastModifiedTime(file, FileTime.fromMillis(time.toMillis() + 2000));
+		ResponseFile second = ResponseFile.read(file.toString());
+		assertNotSame(first, second);
+		assertArrayEquals(new String[] {"-b", "22"}, second.getArguments().toArray());
+	}
+	
+	@Test
+	public void cacheKeepsTheFilesUsedLast() throws IOException {
+		Path hot = write("hot", "-h");
+		Path cold = write("cold", "-c");
+		ResponseFile hotFile = ResponseFile.read(hot.toString());
+		ResponseFile coldFile = ResponseFile.read(cold.toString());
+		
+		for (int i = 0; i < ResponseFile.MAX_CACHED_FILES; i++) {
+			ResponseFile.read(write("file" + i, "-" + i).toString());
+			assertSame(hotFile, ResponseFile.read(hot.toString()));
+		}
+		assertNotSame(coldFile, ResponseFile.read(cold.toString()));
+	}
+}
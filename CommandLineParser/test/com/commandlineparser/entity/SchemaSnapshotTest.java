@@ -0,0 +1,165 @@
+package com.commandlineparser.entity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.commandlineparser.exception.ParseException;
+
+/**
+ * Checks that the options loaded from a snapshot describe, parse and print as the options written.
+ */
+public class SchemaSnapshotTest {
+
+	private static final String[][] ARGUMENTS = {
+		{"-a", "-b", "1024", "file"},
+		{"--block-size=2", "--col", "-q"},
+		{"-x", "-c"},
+		{"--create", "-Dkey=value", "-Dflag", "-q"},
+		{"-n", "42", "-f", "in.txt", "--", "-a"},
+		{"--bl"},
+		{"-zz"},
+		{"-q", "-ab", "3"},
+	};
+	
+	private Path file;
+	
+	@Before
+	public void createFile() throws IOException {
+		file = Files.createTempFile("options", ".snapshot");
+	}
+	
+	@After
+	public void deleteFile() throws IOException {
+		Files.delete(file);
+	}
+	
+	private static Options options() {
+		Options options = new Options();
+		options.addOption("a", "all", false, "do not hide entries starting with .");
+		options.addOption(Option.builder("b").longOpt("block-size").hasArg().argName("SIZE").desc("use SIZE-byte blocks").build());
+		options.addOption(Option.builder().longOpt("color").hasArg().optionalArg(true).argName("WHEN").build());
+		options.addOption(Option.builder("D").hasArgs().valueSeparator('=').desc("define a property").build());
+		options.addOption(Option.builder("n").hasArg().type(Number.class).build());
+		options.addOption(Option.builder("f").longOpt("file").hasArg().type(File.class).desc("the input \u00e9t\u00e9").build());
+		options.addRequiredOption("q", "quiet", false, "quiet");
+		OptionGroup group = new OptionGroup();
+		group.addOption(Option.builder("x").desc("extract").build());
+		group.addOption(Option.builder("c").longOpt("create").desc("create").build());
+		group.setRequired(false);
+		options.addOptionGroup(group);
+		
+		return options;
+	}
+	
+	private static String describe(Option option) {
+		return option.getOpt() + " " + option.getLongOpt() + " " + option.getArgName() + " " + option.getDescription() + " "
+				+ option.getType() + " " + option.getNumberOfArgs() + " " + option.isRequired() + " " + option.hasOptionalArg() + " "
+				+ (int) option.getValueSeparator();
+	}
+	
+	private static List<String> describe(Options options) {
+		List<String> description = new ArrayList<>();
+		for (Option option : options.getOptions())
+			description.add(describe(option) + " " + options.getOptionGroup(option));
+		description.add(String.valueOf(options.getRequiredOptions()));
+		
+		return description;
+	}
+	
+	private static String parse(Options options, String[] arguments) {
+		try {
+			CommandLine cmd = new DefaultParser().parse(options, arguments);
+			StringBuilder sb = new StringBuilder();
+			for (Option option : cmd.getOptions())
+				sb.append(option.getKey()).append('=').append(option.getValuesList()).append(' ');
+			
+			return sb.append(cmd.getArgList()).toString();
+		} catch (ParseException e) {
+			return e.getClass().getSimpleName() + ": " + e.getMessage();
+		}
+	}
+	
+	private static String help(Options options) {
+		StringWriter out = new StringWriter();
+		PrintWriter pw = new PrintWriter(out);
+		new HelpFormatter().printHelp(pw, 60, "ls", "header", options, 1, 3, "footer", true);
+		pw.flush();
+		
+		return out.toString();
+	}
+	
+	@Test
+	public void loadedOptionsAreTheOptionsWritten() throws IOException {
+		Options options = options();
+		SchemaSnapshot.write(options, file);
+		Options loaded = SchemaSnapshot.load(file);
+		
+		assertEquals(describe(options), describe(loaded));
+		assertEquals(help(options), help(loaded));
+	}
+	
+	@Test
+	public void loadedOptionsParseAsTheOptionsWritten() throws IOException {
+		Options options = options();
+		SchemaSnapshot.write(options, file);
+		Options loaded = SchemaSnapshot.load(file);
+		
+		for (String[] arguments : ARGUMENTS)
+			assertEquals(String.join(" ", arguments), parse(options, arguments), parse(loaded, arguments));
+	}
+	
+	@Test
+	public void streamAndFileHoldTheSameSnapshot() throws IOException {
+		Options options = options();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SchemaSnapshot.write(options, out);
+		SchemaSnapshot.write(options, file);
+		
+		assertEquals(new String(out.toByteArray(), "ISO-8859-1"), new String(Files.readAllBytes(file), "ISO-8859-1"));
+	}
+	
+	@Test
+	public void loadedOptionsAreFrozen() throws IOException {
+		SchemaSnapshot.write(options(), file);
+		Options loaded = SchemaSnapshot.load(file);
+		
+		try {
+			loaded.getOption("a").setDescription("changed");
+			fail("a loaded option can be changed");
+		} catch (IllegalStateException e) {
+			//expected
+		}
+		try {
+			loaded.getOptionGroup(loaded.getOption("x")).addOption(Option.builder("y").build());
+			fail("a loaded group can be changed");
+		} catch (IllegalStateException e) {
+			//expected
+		}
+		
+		int version = loaded.getVersion();
+		assertSame(loaded.compile(), loaded.compile());
+		loaded.addOption("y", "added");
+		assertEquals(version + 1, loaded.getVersion());
+	}
+	
+	@Test(expected = IOException.class)
+	public void rejectsAFileWhichIsNotASnapshot() throws IOException {
+		Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+		SchemaSnapshot.load(file);
+	}
+}
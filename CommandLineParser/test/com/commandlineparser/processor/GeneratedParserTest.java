@@ -0,0 +1,179 @@
+package com.commandlineparser.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.commandlineparser.entity.DefaultParser;
+import com.commandlineparser.entity.OptionBinder;
+
+/**
+ * Compiles annotated classes with the {@link OptionsProcessor} and checks that the generated parsers give the fields,
+ * or the exception, that {@link DefaultParser} and {@link OptionBinder} give for the same arguments.
+ */
+public class GeneratedParserTest {
+
+	private static final String NAMES = "package sample;\n"
+			+ "import com.commandlineparser.annotation.*;\n"
+			+ "import java.util.List;\n"
+			+ "@CommandLineOptions\n"
+			+ "public class Names {\n"
+			+ "	@CommandLineOption(opt = \"v\", longOpt = \"verbose\") boolean verbose;\n"
+			+ "	@CommandLineOption(longOpt = \"version\") boolean version;\n"
+			+ "	@CommandLineOption(longOpt = \"ver\") String ver;\n"
+			+ "	@CommandLineOption(longOpt = \"alpha\") String alpha;\n"
+			+ "	@CommandLineOption(longOpt = \"alps\") boolean alps;\n"
+			+ "	@CommandLineOption(longOpt = \"a\") boolean a;\n"
+			+ "	@CommandLineOption(opt = \"D\") String[] defs;\n"
+			+ "	@CommandLineArguments List<String> rest;\n"
+			+ "}\n";
+	
+	private static final String TYPES = "package sample;\n"
+			+ "import com.commandlineparser.annotation.*;\n"
+			+ "import java.io.File;\n"
+			+ "import java.util.List;\n"
+			+ "@CommandLineOptions(parserName = \"TypesCli\", requiredGroups = \"mode\")\n"
+			+ "public class Types {\n"
+			+ "	@CommandLineOption(opt = \"n\", longOpt = \"count\", required = true) int count;\n"
+			+ "	@CommandLineOption(opt = \"l\") long size;\n"
+			+ "	@CommandLineOption(opt = \"r\", longOpt = \"ratio\") double ratio;\n"
+			+ "	@CommandLineOption(opt = \"f\") File file;\n"
+			+ "	@CommandLineOption(opt = \"I\", longOpt = \"include\") List<String> includes;\n"
+			+ "	@CommandLineOption(opt = \"x\", group = \"mode\") boolean extract;\n"
+			+ "	@CommandLineOption(opt = \"c\", longOpt = \"create\", group = \"mode\") boolean create;\n"
+			+ "	@CommandLineOption(opt = \"t\", longOpt = \"type\", group = \"mode\") String type;\n"
+			+ "	@CommandLineArguments String[] rest;\n"
+			+ "}\n";
+	
+	private static final String[][] NAMES_ARGUMENTS = {
+		{"--ver", "1"}, {"--vers"}, {"--versi"}, {"--verb"}, {"--v"}, {"--al", "q"}, {"--alp"}, {"--alph", "z"}, {"--alps"},
+		{"--a"}, {"-a"}, {"--x"}, {"--"}, {"--verbose=1"}, {"--ver=3"}, {"-ver=3"}, {"-al"}, {"-alphaX"},
+		{"--alpha=1", "r"}, {"-v", "-Dk=v"}, {"-D", "a", "b", "--", "c"}, {"--=1"}, {"--ver"}, {"-v", "file", "-a"}, {},
+	};
+	
+	private static final String[][] TYPES_ARGUMENTS = {
+		{"-n", "3", "-x"}, {"--count=4", "-c", "in", "out"}, {"-n3", "-t", "tar"}, {"-n", "x", "-x"}, {"-x"},
+		{"-n", "1"}, {"-n", "1", "-x", "-c"}, {"-n", "1", "-l", "12345678901", "-r", "0.5", "-f", "a.txt", "-x"},
+		{"-n", "1", "-x", "-I", "a", "b", "--include=c"}, {"-n", "1", "-x", "-l"}, {"-n", "1", "-x", "-r", "one"},
+		{"-n", "1", "--type"}, {"-n", "1", "--cr"}, {"-n", "1", "-x", "-q"}, {"-n", "1", "-x", "--", "-c"},
+	};
+	
+	private Path dir;
+	private URLClassLoader loader;
+	
+	@Before
+	public void compile() throws IOException {
+		dir = Files.createTempDirectory("generated");
+		Path source = dir.resolve("sample");
+		Files.createDirectories(source);
+		Files.write(source.resolve("Names.java"), NAMES.getBytes(StandardCharsets.UTF_8));
+		Files.write(source.resolve("Types.java"), TYPES.getBytes(StandardCharsets.UTF_8));
+		
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		StringWriter diagnostics = new StringWriter();
+		boolean compiled = compiler.getTask(diagnostics, null, null,
+				Arrays.asList("-processor", OptionsProcessor.class.getName(), "-classpath", System.getProperty("java.class.path"),
+						"-d", dir.toString(), "-s", dir.toString()),
+				null, compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)
+						.getJavaFileObjects(source.resolve("Names.java").toFile(), source.resolve("Types.java").toFile()))
+				.call();
+		assertTrue(diagnostics.toString(), compiled);
+		
+		loader = new URLClassLoader(new URL[] {dir.toUri().toURL()}, getClass().getClassLoader());
+	}
+	
+	@After
+	public void delete() throws IOException {
+		loader.close();
+		try (Stream<Path> files = Files.walk(dir)) {
+			files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+	
+	/**
+	 * Returns the fields of the bound instance, or the exception thrown.
+	 */
+	private static String describe(Object instance) throws IllegalAccessException {
+		if (instance instanceof Exception)
+			return instance.getClass().getName() + ": " + ((Exception) instance).getMessage();
+		
+		StringBuilder sb = new StringBuilder();
+		for (Field field : instance.getClass().getDeclaredFields()) {
+			field.setAccessible(true);
+			Object value = field.get(instance);
+			if (value != null && value.getClass().isArray()) {
+				Object[] values = new Object[Array.getLength(value)];
+				for (int i = 0; i < values.length; i++)
+					values[i] = Array.get(value, i);
+				value = Arrays.asList(values);
+			}
+			sb.append(field.getName()).append('=').append(value).append(' ');
+		}
+		
+		return sb.toString();
+	}
+	
+	private static Object generated(Method parse, String[] arguments) throws IllegalAccessException {
+		try {
+			return parse.invoke(null, (Object) arguments);
+		} catch (InvocationTargetException e) {
+			return e.getCause();
+		}
+	}
+	
+	private static Object bound(Class<?> type, String[] arguments) {
+		try {
+			return OptionBinder.bind(new DefaultParser().parse(OptionBinder.createOptions(type), arguments), type);
+		} catch (Exception e) {
+			return e;
+		}
+	}
+	
+	private void checkParser(String typeName, String parserName, String[][] cases) throws ReflectiveOperationException {
+		Class<?> type = loader.loadClass(typeName);
+		Method parse = loader.loadClass(parserName).getMethod("parse", String[].class);
+		
+		for (String[] arguments : cases)
+			assertEquals(Arrays.toString(arguments), describe(bound(type, arguments)), describe(generated(parse, arguments)));
+	}
+	
+	@Test
+	public void resolvesNamesAsTheDefaultParser() throws ReflectiveOperationException {
+		checkParser("sample.Names", "sample.NamesParser", NAMES_ARGUMENTS);
+	}
+	
+	@Test
+	public void convertsAndChecksAsTheDefaultParser() throws ReflectiveOperationException {
+		checkParser("sample.Types", "sample.TypesCli", TYPES_ARGUMENTS);
+	}
+	
+	@Test
+	public void writesTheParserSource() throws IOException {
+		String source = new String(Files.readAllBytes(dir.resolve("sample").resolve("TypesCli.java")), StandardCharsets.UTF_8);
+		assertTrue(source.contains("class TypesCli"));
+		assertTrue(source.contains(" parse(String[] arguments)"));
+		assertTrue(new File(dir.toFile(), "sample/TypesCli.class").isFile());
+	}
+}